@@ -44,6 +44,24 @@ public abstract class AbstractAssortment<E extends Equals<?>> extends AbstractEq
     @Override
     public abstract String toString();
 
+    /**
+     * Formats the elements in iteration order as {@code {a, b, c}}.
+     */
+    @NotNull
+    final String elementsToString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        final Iterator<E> iterator = iterator();
+        while (iterator.hasNext()) {
+            builder.append(iterator.next());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+
+        return builder.append("}").toString();
+    }
+
     @NotNull
     public <C extends Collection<E>> C toCollectionType(@NotNull final Supplier<C> collectionFactory) {
 
@@ -0,0 +1,348 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A double ended queue in a circular array. The elements occupy a run of slots from the
+ * head that wraps around the end of the array, so adding and removing at either end is O(1)
+ * with no per element allocation. The array length is a power of two, so wrapping is a mask
+ * rather than a division, and it doubles when full.
+ * <p>
+ * Used as a stack it replaces {@link LinkedList}: {@link #add(Equals)} pushes, {@link #get()}
+ * peeks and {@link #remove()} pops at the tail. Null elements are not permitted, so the
+ * poll and peek methods return null only when the deque is empty.
+ * <p>
+ * The spliterator splits the range of positions in half and knows the exact size of every
+ * part.
+ */
+public final class ArrayDeque<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    // this value must be a power of two
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // slots outside the run of elements are null
+    @NotNull
+    private Object[] elements;
+    // the slot of the first element
+    private int head;
+    private int size;
+    // incremented on every change so iterators can fail fast
+    private int modifications;
+
+    public ArrayDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity rounded up to the next power of two
+     */
+    public ArrayDeque(final int initialCapacity) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThanOrEqualTo(1, "initial capacity must be >= 1");
+
+        elements = new Object[Hashing.tableSizeFor(initialCapacity)];
+        head = 0;
+        size = 0;
+    }
+
+    public void addFirst(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        if (size == elements.length) {
+            grow();
+        }
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = element;
+        size++;
+        modifications++;
+    }
+
+    public void addLast(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = element;
+        size++;
+        modifications++;
+    }
+
+    /**
+     * Pushes the element onto the tail, the same as {@link #addLast(Equals)}.
+     */
+    public void add(@NotNull final E element) {
+
+        addLast(element);
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            addLast(element);
+        }
+    }
+
+    /**
+     * Removes and returns the first element, or returns null if the deque is empty.
+     */
+    @Nullable
+    public E pollFirst() {
+
+        if (size == 0) {
+            return null;
+        }
+
+        final E element = cast(elements[head]);
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        modifications++;
+        return element;
+    }
+
+    /**
+     * Removes and returns the last element, or returns null if the deque is empty.
+     */
+    @Nullable
+    public E pollLast() {
+
+        if (size == 0) {
+            return null;
+        }
+
+        final int tail = (head + size - 1) & (elements.length - 1);
+        final E element = cast(elements[tail]);
+        elements[tail] = null;
+        size--;
+        modifications++;
+        return element;
+    }
+
+    /**
+     * Returns the first element, or null if the deque is empty.
+     */
+    @Nullable
+    public E peekFirst() {
+
+        return cast(elements[head]);
+    }
+
+    /**
+     * Returns the last element, or null if the deque is empty.
+     */
+    @Nullable
+    public E peekLast() {
+
+        return cast(elements[(head + size - 1) & (elements.length - 1)]);
+    }
+
+    /**
+     * Pops the last element if there is one, unlike {@link LinkedList#remove()} leaving an
+     * empty deque as it is.
+     */
+    public void remove() {
+
+        pollLast();
+    }
+
+    /**
+     * Returns the last element, or null if the deque is empty.
+     */
+    @Nullable
+    public E get() {
+
+        return peekLast();
+    }
+
+    public void clear() {
+
+        for (int i = 0; i < size; i++) {
+            elements[(head + i) & (elements.length - 1)] = null;
+        }
+        head = 0;
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int capacity() {
+
+        return elements.length;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            @NotNull
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The deque was modified during iteration.");
+                }
+                if (position >= size) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                return cast(elements[(head + position++) & (elements.length - 1)]);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        Checks.notNull(action);
+
+        new PositionSpliterator(0, size, modifications).forEachRemaining(action);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return new PositionSpliterator(0, size, modifications);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(elements[(head + i) & (elements.length - 1)]).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Doubles the array, unwrapping the elements to start at slot 0.
+     */
+    private void grow() {
+
+        if (elements.length >= Hashing.MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("The deque cannot grow beyond " + Hashing.MAXIMUM_CAPACITY + " elements.");
+        }
+
+        final Object[] grown = new Object[elements.length << 1];
+        System.arraycopy(elements, head, grown, 0, elements.length - head);
+        // the wrapped part, from slot 0 to the head, follows the part from the head to the end
+        System.arraycopy(elements, 0, grown, elements.length - head, head);
+        elements = grown;
+        head = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Covers the positions [position, fence) counted from the head, halving them on every split.
+     */
+    private final class PositionSpliterator implements Spliterator<E> {
+
+        private final int expectedModifications;
+        private int position;
+        private final int fence;
+
+        private PositionSpliterator(final int origin, final int fence, final int expectedModifications) {
+            this.position = origin;
+            this.fence = fence;
+            this.expectedModifications = expectedModifications;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull final Consumer<? super E> action) {
+
+            checkForComodification();
+            if (position >= fence) {
+                return false;
+            }
+
+            action.accept(cast(elements[(head + position++) & (elements.length - 1)]));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull final Consumer<? super E> action) {
+
+            checkForComodification();
+            final Object[] array = elements;
+            final int mask = array.length - 1;
+            final int first = head;
+            // checked after every element, an action that changes the deque must not be
+            // handed the stale or emptied slots of the array read above
+            while (position < fence) {
+                action.accept(cast(array[(first + position++) & mask]));
+                checkForComodification();
+            }
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<E> trySplit() {
+
+            final int middle = (position + fence) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+
+            final PositionSpliterator prefix = new PositionSpliterator(position, middle, expectedModifications);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return fence - position;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+
+        private void checkForComodification() {
+
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The deque was modified during iteration.");
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An array backed list. Elements are stored in one contiguous array that grows by half
+ * its length when full, so appending is amortized O(1), indexing is O(1) and there is
+ * no per element allocation. Like {@link LinkedList} it accepts null elements.
+ * <p>
+ * The spliterator splits the index range in half and knows the exact size of every
+ * part, so parallel streams divide the work evenly.
+ */
+public final class ArrayList<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    private static final int DEFAULT_CAPACITY = 10;
+    // some virtual machines cannot allocate arrays quite as long as Integer.MAX_VALUE
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+
+    // slots at and after size are null
+    @NotNull
+    private Object[] elements;
+    private int size;
+    // incremented on every change to the size so iterators can fail fast
+    private int modifications;
+
+    /**
+     * Creates an empty list, the array is allocated on the first add.
+     */
+    public ArrayList() {
+        elements = NO_ELEMENTS;
+        size = 0;
+    }
+
+    public ArrayList(final int initialCapacity) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThanOrEqualTo(0, "initial capacity must be >= 0");
+
+        elements = initialCapacity == 0 ? NO_ELEMENTS : new Object[initialCapacity];
+        size = 0;
+    }
+
+    public void add(@Nullable final E element) {
+
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = element;
+        modifications++;
+    }
+
+    /**
+     * Inserts the element at the index, shifting the element at the index and any after it up by one.
+     */
+    public void add(final int index, @Nullable final E element) {
+
+        checkPositionIndex(index);
+
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+        modifications++;
+    }
+
+    /**
+     * Appends every element of the list with a single array copy.
+     */
+    public void addAll(@NotNull final ArrayList<E> list) {
+
+        appendArray(Checks.notNull(list).elements, list.size);
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        appendArray(Checks.notNull(elements), elements.length);
+    }
+
+    @Nullable
+    public E get(final int index) {
+
+        checkElementIndex(index);
+        return cast(elements[index]);
+    }
+
+    /**
+     * Replaces the element at the index, returning the element it replaced.
+     */
+    @Nullable
+    public E set(final int index, @Nullable final E element) {
+
+        checkElementIndex(index);
+        final E previous = cast(elements[index]);
+        elements[index] = element;
+        return previous;
+    }
+
+    /**
+     * Removes the element at the index, shifting any after it down by one, and returns it.
+     */
+    @Nullable
+    public E remove(final int index) {
+
+        checkElementIndex(index);
+        final E removed = cast(elements[index]);
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        modifications++;
+        return removed;
+    }
+
+    /**
+     * Returns the index of the first element equal to the given one, or -1 if there is none.
+     */
+    public int indexOf(@Nullable final E element) {
+
+        for (int i = 0; i < size; i++) {
+            if (element == null ? elements[i] == null : elements[i] != null && isEqual(elements[i], element)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Grows the array, if required, so it holds at least the given number of elements
+     * without growing again.
+     */
+    public void ensureCapacity(final int minimumCapacity) {
+
+        if (minimumCapacity > elements.length) {
+            grow(minimumCapacity);
+        }
+    }
+
+    /**
+     * Shrinks the array to the size of the list.
+     */
+    public void trimToSize() {
+
+        if (size < elements.length) {
+            elements = size == 0 ? NO_ELEMENTS : Arrays.copyOf(elements, size);
+        }
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int capacity() {
+
+        return elements.length;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @Nullable
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The list was modified during iteration.");
+                }
+                if (index >= size) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                return cast(elements[index++]);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        new IndexSpliterator(0, size, modifications).forEachRemaining(action);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return new IndexSpliterator(0, size, modifications);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(elements[i]).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    private void appendArray(@NotNull final Object[] source, final int length) {
+
+        if (length == 0) {
+            return;
+        }
+
+        final int required = size + length;
+        // a negative requirement has overflowed, which grow rejects
+        if (required < 0 || required > elements.length) {
+            grow(required);
+        }
+        // the source may be this list's own array, which the copy handles as it does not overlap
+        System.arraycopy(source, 0, elements, size, length);
+        size += length;
+        modifications++;
+    }
+
+    /**
+     * Grows the array by half its length, or to the minimum capacity if that is larger.
+     */
+    private void grow(final int minimumCapacity) {
+
+        if (minimumCapacity < 0 || minimumCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("The list cannot grow beyond " + MAXIMUM_CAPACITY + " elements.");
+        }
+
+        final long grown = elements.length == 0
+                ? DEFAULT_CAPACITY
+                : elements.length + ((long) elements.length >> 1);
+        elements = Arrays.copyOf(elements, (int) Math.min(MAXIMUM_CAPACITY, Math.max(grown, minimumCapacity)));
+    }
+
+    private void checkElementIndex(final int index) {
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds for size " + size);
+        }
+    }
+
+    private void checkPositionIndex(final int index) {
+
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds for size " + size);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Covers the index range [index, fence), halving it on every split.
+     */
+    private final class IndexSpliterator implements Spliterator<E> {
+
+        private final int expectedModifications;
+        private int index;
+        private final int fence;
+
+        private IndexSpliterator(final int origin, final int fence, final int expectedModifications) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModifications = expectedModifications;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull final Consumer<? super E> action) {
+
+            checkForComodification();
+            if (index >= fence) {
+                return false;
+            }
+
+            action.accept(cast(elements[index++]));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull final Consumer<? super E> action) {
+
+            final Object[] array = elements;
+            for (; index < fence; index++) {
+                action.accept(cast(array[index]));
+            }
+            checkForComodification();
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<E> trySplit() {
+
+            final int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+
+            final IndexSpliterator prefix = new IndexSpliterator(index, middle, expectedModifications);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void checkForComodification() {
+
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The list was modified during iteration.");
+            }
+        }
+    }
+}
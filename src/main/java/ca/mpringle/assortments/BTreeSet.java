@@ -0,0 +1,772 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A sorted set of {@link Compares} elements kept in an in memory B+ tree. Every node holds
+ * up to fanout elements, or fanout children, in one array, so a lookup binary searches a
+ * handful of arrays instead of following a reference per comparison as a red-black tree
+ * does. Elements live only in the leaves, which are linked in order, so iterating a range
+ * walks arrays front to back after a single descent.
+ * <p>
+ * Elements are ordered and identified by {@link Compares#compareTo(Object)}, which must be
+ * consistent with {@link Equals#isEqual(Object)}, as it is by default.
+ * <p>
+ * Nodes are split on the way down when adding and topped up from a sibling on the way down
+ * when removing, so both are a single pass from the root. Every node but the root holds at
+ * least half of the fanout. {@link #fromSorted(int, Iterable)} builds a tree of full nodes
+ * from sorted input in linear time.
+ */
+public final class BTreeSet<E extends Compares<E>> extends AbstractAssortment<E> {
+
+    static final int DEFAULT_FANOUT = 64;
+    static final int MINIMUM_FANOUT = 4;
+
+    // the most elements in a leaf and the most children of a branch
+    private final int fanout;
+    // the least elements in a leaf and the least children of a branch, except at the root
+    private final int minimum;
+    @NotNull
+    private Node root;
+    // the leftmost leaf, splits and merges always keep the left node so it never changes
+    @NotNull
+    private Leaf head;
+    private int size;
+    // incremented on every structural change so iterators can fail fast
+    private int modifications;
+
+    public BTreeSet() {
+        this(DEFAULT_FANOUT);
+    }
+
+    public BTreeSet(final int fanout) {
+
+        Checks.notNullAnd(fanout).isGreaterThanOrEqualTo(MINIMUM_FANOUT, "fanout must be >= " + MINIMUM_FANOUT);
+
+        this.fanout = fanout;
+        this.minimum = fanout / 2;
+        this.head = new Leaf(fanout);
+        this.root = head;
+        this.size = 0;
+    }
+
+    /**
+     * Builds a set with the default fanout from elements in strictly ascending order.
+     */
+    @NotNull
+    public static <E extends Compares<E>> BTreeSet<E> fromSorted(@NotNull final Iterable<E> sorted) {
+
+        return fromSorted(DEFAULT_FANOUT, sorted);
+    }
+
+    /**
+     * Builds a set from elements in strictly ascending order in O(n), filling the leaves and
+     * then each level of branches in turn, rather than adding the elements one at a time.
+     *
+     * @throws IllegalArgumentException if the elements are not in strictly ascending order
+     */
+    @NotNull
+    public static <E extends Compares<E>> BTreeSet<E> fromSorted(final int fanout, @NotNull final Iterable<E> sorted) {
+
+        final BTreeSet<E> set = new BTreeSet<>(fanout);
+        Checks.notNull(sorted);
+
+        Node[] level = new Node[]{set.head};
+        int nodes = 1;
+        Leaf leaf = set.head;
+        Object previous = null;
+        for (final E element : sorted) {
+            Checks.notNull(element);
+            if (previous != null && compare(previous, element) >= 0) {
+                throw new IllegalArgumentException("The elements must be in strictly ascending order, " + element + " follows " + previous + ".");
+            }
+            if (leaf.count == fanout) {
+                final Leaf next = new Leaf(fanout);
+                leaf.next = next;
+                leaf = next;
+                if (nodes == level.length) {
+                    level = Arrays.copyOf(level, nodes * 2);
+                }
+                level[nodes++] = leaf;
+            }
+            leaf.keys[leaf.count++] = element;
+            previous = element;
+            set.size++;
+        }
+
+        // top the last leaf up to the minimum from its full neighbour
+        if (nodes > 1 && leaf.count < set.minimum) {
+            final Leaf neighbour = (Leaf) level[nodes - 2];
+            final int moved = set.minimum - leaf.count;
+            System.arraycopy(leaf.keys, 0, leaf.keys, moved, leaf.count);
+            System.arraycopy(neighbour.keys, neighbour.count - moved, leaf.keys, 0, moved);
+            Arrays.fill(neighbour.keys, neighbour.count - moved, neighbour.count, null);
+            neighbour.count -= moved;
+            leaf.count += moved;
+        }
+
+        // the smallest element under each node, which separates it from the node to its left
+        Object[] lows = new Object[nodes];
+        for (int i = 0; i < nodes; i++) {
+            lows[i] = level[i].keys[0];
+        }
+
+        while (nodes > 1) {
+            final int groups = (nodes + fanout - 1) / fanout;
+            final Node[] branches = new Node[groups];
+            final Object[] branchLows = new Object[groups];
+            // the last branch takes children from the one before it if it would fall short
+            final int last = nodes - (groups - 1) * fanout;
+            final int lastStart = last < set.minimum ? nodes - set.minimum : nodes - last;
+
+            int start = 0;
+            for (int g = 0; g < groups; g++) {
+                final int end = g == groups - 1 ? nodes : Math.min(start + fanout, lastStart);
+                final Branch branch = new Branch(fanout);
+                System.arraycopy(level, start, branch.children, 0, end - start);
+                System.arraycopy(lows, start + 1, branch.keys, 0, end - start - 1);
+                branch.count = end - start;
+                branches[g] = branch;
+                branchLows[g] = lows[start];
+                start = end;
+            }
+
+            level = branches;
+            lows = branchLows;
+            nodes = groups;
+        }
+
+        set.root = level[0];
+        return set;
+    }
+
+    /**
+     * Adds the element, unless an element that compares equal to it is already present.
+     */
+    public void add(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        if (root.count == fanout) {
+            final Branch newRoot = new Branch(fanout);
+            newRoot.children[0] = root;
+            newRoot.count = 1;
+            splitChild(newRoot, 0);
+            root = newRoot;
+        }
+
+        Node node = root;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            int child = childIndex(branch, element);
+            if (branch.children[child].count == fanout) {
+                splitChild(branch, child);
+                if (compare(element, branch.keys[child]) >= 0) {
+                    child++;
+                }
+            }
+            node = branch.children[child];
+        }
+
+        final Leaf leaf = (Leaf) node;
+        final int index = search(leaf.keys, leaf.count, element);
+        if (index >= 0) {
+            return;
+        }
+
+        final int insertion = -index - 1;
+        System.arraycopy(leaf.keys, insertion, leaf.keys, insertion + 1, leaf.count - insertion);
+        leaf.keys[insertion] = element;
+        leaf.count++;
+        size++;
+        modifications++;
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Removes the element that compares equal to the given one, returning true if there was one.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        Node node = root;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            int child = childIndex(branch, element);
+            if (branch.children[child].count <= minimum) {
+                child = topUp(branch, child);
+            }
+            node = branch.children[child];
+        }
+
+        // merging the only two children of the root leaves it with one, which becomes the root
+        while (root instanceof Branch && root.count == 1) {
+            root = ((Branch) root).children[0];
+        }
+
+        final Leaf leaf = (Leaf) node;
+        final int index = search(leaf.keys, leaf.count, element);
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+        leaf.keys[--leaf.count] = null;
+        size--;
+        modifications++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        final Leaf leaf = findLeaf(element);
+        return search(leaf.keys, leaf.count, element) >= 0;
+    }
+
+    /**
+     * Returns the smallest element.
+     *
+     * @throws NoSuchElementException if the set is empty
+     */
+    @NotNull
+    public E first() {
+
+        checkNotEmpty();
+        return cast(head.keys[0]);
+    }
+
+    /**
+     * Returns the largest element.
+     *
+     * @throws NoSuchElementException if the set is empty
+     */
+    @NotNull
+    public E last() {
+
+        checkNotEmpty();
+        final Leaf leaf = lastLeaf(root);
+        return cast(leaf.keys[leaf.count - 1]);
+    }
+
+    /**
+     * Returns the largest element less than or equal to the given one, or null if there is none.
+     */
+    @Nullable
+    public E floor(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        // the subtree just left of the path taken, which holds the floor if the leaf does not
+        Node left = null;
+        Node node = root;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            final int child = childIndex(branch, element);
+            if (child > 0) {
+                left = branch.children[child - 1];
+            }
+            node = branch.children[child];
+        }
+
+        final Leaf leaf = (Leaf) node;
+        final int index = search(leaf.keys, leaf.count, element);
+        if (index >= 0) {
+            return cast(leaf.keys[index]);
+        }
+
+        final int insertion = -index - 1;
+        if (insertion > 0) {
+            return cast(leaf.keys[insertion - 1]);
+        }
+        if (left == null) {
+            return null;
+        }
+
+        final Leaf previous = lastLeaf(left);
+        return cast(previous.keys[previous.count - 1]);
+    }
+
+    /**
+     * Returns the smallest element greater than or equal to the given one, or null if there is none.
+     */
+    @Nullable
+    public E ceiling(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        final Leaf leaf = findLeaf(element);
+        final int index = search(leaf.keys, leaf.count, element);
+        if (index >= 0) {
+            return cast(leaf.keys[index]);
+        }
+
+        final int insertion = -index - 1;
+        if (insertion < leaf.count) {
+            return cast(leaf.keys[insertion]);
+        }
+
+        return leaf.next == null ? null : cast(leaf.next.keys[0]);
+    }
+
+    /**
+     * Returns a view of the elements from the first, inclusive, to the second, exclusive.
+     * The view reflects later changes to this set, its size is counted by walking the range.
+     *
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    @NotNull
+    public AbstractAssortment<E> subSet(@NotNull final E from, @NotNull final E to) {
+
+        Checks.notNull(from);
+        Checks.notNull(to);
+        if (compare(from, to) > 0) {
+            throw new IllegalArgumentException("The range is empty, " + from + " is greater than " + to + ".");
+        }
+
+        return new SubSet(from, to);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int fanout() {
+
+        return fanout;
+    }
+
+    /**
+     * The number of levels, a lone leaf has a height of one.
+     */
+    int height() {
+
+        int height = 1;
+        for (Node node = root; node instanceof Branch; node = ((Branch) node).children[0]) {
+            height++;
+        }
+
+        return height;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new LeafIterator(head, 0, null);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return elementsToString();
+    }
+
+    @NotNull
+    private Leaf findLeaf(@NotNull final Object element) {
+
+        Node node = root;
+        while (node instanceof Branch) {
+            final Branch branch = (Branch) node;
+            node = branch.children[childIndex(branch, element)];
+        }
+
+        return (Leaf) node;
+    }
+
+    /**
+     * Splits the full child in two and adds the second half to the branch, which must not be full.
+     */
+    private void splitChild(@NotNull final Branch branch, final int child) {
+
+        final Node full = branch.children[child];
+        final Node right;
+        final Object separator;
+        if (full instanceof Leaf) {
+            final Leaf leaf = (Leaf) full;
+            final Leaf rightLeaf = new Leaf(fanout);
+            final int kept = fanout / 2;
+            rightLeaf.count = leaf.count - kept;
+            System.arraycopy(leaf.keys, kept, rightLeaf.keys, 0, rightLeaf.count);
+            Arrays.fill(leaf.keys, kept, leaf.count, null);
+            leaf.count = kept;
+            rightLeaf.next = leaf.next;
+            leaf.next = rightLeaf;
+            right = rightLeaf;
+            separator = rightLeaf.keys[0];
+        } else {
+            final Branch left = (Branch) full;
+            final Branch rightBranch = new Branch(fanout);
+            final int kept = fanout / 2;
+            rightBranch.count = left.count - kept;
+            System.arraycopy(left.children, kept, rightBranch.children, 0, rightBranch.count);
+            System.arraycopy(left.keys, kept, rightBranch.keys, 0, rightBranch.count - 1);
+            // the key between the two halves moves up to the parent
+            separator = left.keys[kept - 1];
+            Arrays.fill(left.children, kept, left.count, null);
+            Arrays.fill(left.keys, kept - 1, left.count - 1, null);
+            left.count = kept;
+            right = rightBranch;
+        }
+
+        System.arraycopy(branch.children, child + 1, branch.children, child + 2, branch.count - child - 1);
+        System.arraycopy(branch.keys, child, branch.keys, child + 1, branch.count - child - 1);
+        branch.children[child + 1] = right;
+        branch.keys[child] = separator;
+        branch.count++;
+        modifications++;
+    }
+
+    /**
+     * Gives a child at the minimum size one more element or child, borrowing from a sibling
+     * with some to spare or else merging it with a sibling. Returns the index the child now
+     * has in the branch.
+     */
+    private int topUp(@NotNull final Branch branch, final int child) {
+
+        modifications++;
+        if (child > 0 && branch.children[child - 1].count > minimum) {
+            borrowFromLeft(branch, child);
+            return child;
+        }
+        if (child < branch.count - 1 && branch.children[child + 1].count > minimum) {
+            borrowFromRight(branch, child);
+            return child;
+        }
+        if (child < branch.count - 1) {
+            merge(branch, child);
+            return child;
+        }
+
+        merge(branch, child - 1);
+        return child - 1;
+    }
+
+    private static void borrowFromLeft(@NotNull final Branch branch, final int child) {
+
+        final Node node = branch.children[child];
+        final Node left = branch.children[child - 1];
+        if (node instanceof Leaf) {
+            System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+            node.keys[0] = left.keys[left.count - 1];
+            left.keys[left.count - 1] = null;
+            branch.keys[child - 1] = node.keys[0];
+        } else {
+            final Branch to = (Branch) node;
+            final Branch from = (Branch) left;
+            System.arraycopy(to.children, 0, to.children, 1, to.count);
+            System.arraycopy(to.keys, 0, to.keys, 1, to.count - 1);
+            to.children[0] = from.children[from.count - 1];
+            to.keys[0] = branch.keys[child - 1];
+            branch.keys[child - 1] = from.keys[from.count - 2];
+            from.children[from.count - 1] = null;
+            from.keys[from.count - 2] = null;
+        }
+        node.count++;
+        left.count--;
+    }
+
+    private static void borrowFromRight(@NotNull final Branch branch, final int child) {
+
+        final Node node = branch.children[child];
+        final Node right = branch.children[child + 1];
+        if (node instanceof Leaf) {
+            node.keys[node.count] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            right.keys[right.count - 1] = null;
+            branch.keys[child] = right.keys[0];
+        } else {
+            final Branch to = (Branch) node;
+            final Branch from = (Branch) right;
+            to.children[to.count] = from.children[0];
+            to.keys[to.count - 1] = branch.keys[child];
+            branch.keys[child] = from.keys[0];
+            System.arraycopy(from.children, 1, from.children, 0, from.count - 1);
+            System.arraycopy(from.keys, 1, from.keys, 0, from.count - 2);
+            from.children[from.count - 1] = null;
+            from.keys[from.count - 2] = null;
+        }
+        node.count++;
+        right.count--;
+    }
+
+    /**
+     * Moves everything in the child to the right of the given one into it and removes the right child.
+     */
+    private static void merge(@NotNull final Branch branch, final int child) {
+
+        final Node left = branch.children[child];
+        final Node right = branch.children[child + 1];
+        if (left instanceof Leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            ((Leaf) left).next = ((Leaf) right).next;
+        } else {
+            // the separator comes down between the two halves
+            left.keys[left.count - 1] = branch.keys[child];
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count - 1);
+            System.arraycopy(((Branch) right).children, 0, ((Branch) left).children, left.count, right.count);
+        }
+        left.count += right.count;
+
+        System.arraycopy(branch.children, child + 2, branch.children, child + 1, branch.count - child - 2);
+        System.arraycopy(branch.keys, child + 1, branch.keys, child, branch.count - child - 2);
+        branch.children[branch.count - 1] = null;
+        branch.keys[branch.count - 2] = null;
+        branch.count--;
+    }
+
+    private void checkNotEmpty() {
+
+        if (size == 0) {
+            throw new NoSuchElementException("The set is empty.");
+        }
+    }
+
+    @NotNull
+    private static Leaf lastLeaf(@NotNull final Node node) {
+
+        Node last = node;
+        while (last instanceof Branch) {
+            last = ((Branch) last).children[last.count - 1];
+        }
+
+        return (Leaf) last;
+    }
+
+    /**
+     * Returns the child of the branch whose range holds the element, the number of separators
+     * less than or equal to it.
+     */
+    private static int childIndex(@NotNull final Branch branch, @NotNull final Object element) {
+
+        int low = 0;
+        int high = branch.count - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(branch.keys[middle], element) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Binary searches the first count keys, returning the index of the element if present,
+     * otherwise (-(insertion point) - 1).
+     */
+    private static int search(@NotNull final Object[] keys, final int count, @NotNull final Object element) {
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(keys[middle], element);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Compares<Object>) stored).compareTo(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@NotNull final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * The count is the number of keys in a leaf and the number of children of a branch.
+     */
+    private abstract static class Node {
+
+        @NotNull
+        final Object[] keys;
+        int count;
+
+        private Node(final int keys) {
+            this.keys = new Object[keys];
+        }
+    }
+
+    private static final class Leaf extends Node {
+
+        @Nullable
+        Leaf next;
+
+        private Leaf(final int fanout) {
+            super(fanout);
+        }
+    }
+
+    /**
+     * Every element under children[i + 1] is greater than or equal to keys[i], and every
+     * element under children[i] is less than it.
+     */
+    private static final class Branch extends Node {
+
+        @NotNull
+        final Node[] children;
+
+        private Branch(final int fanout) {
+            super(fanout - 1);
+            this.children = new Node[fanout];
+        }
+    }
+
+    /**
+     * Walks the leaves from a position, stopping at the first element that is not less than
+     * the end, if there is one.
+     */
+    private final class LeafIterator implements Iterator<E> {
+
+        private final int expectedModifications = modifications;
+        @Nullable
+        private final Object end;
+        @Nullable
+        private Leaf leaf;
+        private int index;
+
+        private LeafIterator(@NotNull final Leaf leaf, final int index, @Nullable final Object end) {
+            this.leaf = leaf;
+            this.index = index;
+            this.end = end;
+            skipExhaustedLeaf();
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return leaf != null && index < leaf.count && (end == null || compare(leaf.keys[index], end) < 0);
+        }
+
+        @Override
+        @NotNull
+        public E next() {
+
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The set was modified during iteration.");
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+            }
+
+            final E element = cast(leaf.keys[index++]);
+            skipExhaustedLeaf();
+            return element;
+        }
+
+        private void skipExhaustedLeaf() {
+
+            if (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * The elements in [from, to), found afresh by every method so that the view follows the set.
+     */
+    private final class SubSet extends AbstractAssortment<E> {
+
+        @NotNull
+        private final E from;
+        @NotNull
+        private final E to;
+
+        private SubSet(@NotNull final E from, @NotNull final E to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+
+            int size = 0;
+            for (final Iterator<E> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+                size++;
+            }
+
+            return size;
+        }
+
+        @Override
+        public boolean contains(@Nullable final E element) {
+
+            return element != null
+                    && compare(element, from) >= 0
+                    && compare(element, to) < 0
+                    && BTreeSet.this.contains(element);
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> iterator() {
+
+            final Leaf leaf = findLeaf(from);
+            final int index = search(leaf.keys, leaf.count, from);
+            return new LeafIterator(leaf, index >= 0 ? index : -index - 1, to);
+        }
+
+        @Override
+        @NotNull
+        public Spliterator<E> spliterator() {
+
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            return elementsToString();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable singly linked list in which every list is a cell holding its first element
+ * and the list of the rest. {@link #prepend(Equals)} returns a new cell whose rest is this
+ * list, so any number of versions can share a common tail without copying, and as no cell
+ * ever changes, sharing cannot corrupt another version the way
+ * {@link LinkedList#addAll(LinkedList)} can.
+ * <p>
+ * {@link #prepend(Equals)}, {@link #head()}, {@link #tail()} and {@link #size()} are O(1),
+ * {@link #reverse()} and {@link #fromArray(Equals[])} are O(n) with one cell per element.
+ * The spliterator knows the exact size of every part and splits without copying, by walking
+ * to the middle of its part, and only once a part has at least
+ * {@link #MINIMUM_SPLIT_SIZE} elements. Like {@link LinkedList} it accepts null elements.
+ */
+public final class ConsList<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    // smaller parts are cheaper to walk than to hand to another thread
+    static final int MINIMUM_SPLIT_SIZE = 1024;
+
+    private static final ConsList<?> EMPTY = new ConsList<>(null, null);
+
+    @Nullable
+    private final E head;
+    // null only for the empty list
+    @Nullable
+    private final ConsList<E> tail;
+    private final int size;
+
+    private ConsList(@Nullable final E head, @Nullable final ConsList<E> tail) {
+        this.head = head;
+        this.tail = tail;
+        this.size = tail == null ? 0 : tail.size + 1;
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <E extends Equals<?>> ConsList<E> empty() {
+
+        return (ConsList<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    @NotNull
+    public static <E extends Equals<?>> ConsList<E> of(@NotNull final E... elements) {
+
+        return fromArray(elements);
+    }
+
+    /**
+     * Returns a list of the elements in array order, building it from the last element back.
+     */
+    @NotNull
+    public static <E extends Equals<?>> ConsList<E> fromArray(@NotNull final E[] elements) {
+
+        Checks.notNull(elements);
+
+        ConsList<E> list = empty();
+        for (int i = elements.length - 1; i >= 0; i--) {
+            list = new ConsList<>(elements[i], list);
+        }
+        return list;
+    }
+
+    /**
+     * Returns a list of the element followed by this list, which it shares.
+     */
+    @NotNull
+    public ConsList<E> prepend(@Nullable final E element) {
+
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The list cannot grow beyond " + Integer.MAX_VALUE + " elements.");
+        }
+
+        return new ConsList<>(element, this);
+    }
+
+    /**
+     * Returns the first element.
+     *
+     * @throws NoSuchElementException if the list is empty
+     */
+    @Nullable
+    public E head() {
+
+        checkNotEmpty();
+        return head;
+    }
+
+    /**
+     * Returns the list of every element but the first, which this list shares.
+     *
+     * @throws NoSuchElementException if the list is empty
+     */
+    @NotNull
+    public ConsList<E> tail() {
+
+        checkNotEmpty();
+        return tail;
+    }
+
+    @NotNull
+    public ConsList<E> reverse() {
+
+        ConsList<E> reversed = empty();
+        for (ConsList<E> list = this; list.tail != null; list = list.tail) {
+            reversed = new ConsList<>(list.head, reversed);
+        }
+        return reversed;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            @NotNull
+            ConsList<E> list = ConsList.this;
+
+            @Override
+            public boolean hasNext() {
+                return list.tail != null;
+            }
+
+            @Override
+            @Nullable
+            public E next() {
+
+                if (list.tail == null) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                final E element = list.head;
+                list = list.tail;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        Checks.notNull(action);
+
+        for (ConsList<E> list = this; list.tail != null; list = list.tail) {
+            action.accept(list.head);
+        }
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return new CellSpliterator<>(this, size);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        forEach(element -> builder.append(element).append(", "));
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    private void checkNotEmpty() {
+
+        if (tail == null) {
+            throw new NoSuchElementException("The list is empty.");
+        }
+    }
+
+    /**
+     * Covers the first remaining elements of the list starting at a cell. Splitting hands the
+     * first half to a new spliterator and walks this one on to the second half.
+     */
+    private static final class CellSpliterator<E extends Equals<?>> implements Spliterator<E> {
+
+        @NotNull
+        private ConsList<E> list;
+        private int remaining;
+
+        private CellSpliterator(@NotNull final ConsList<E> list, final int remaining) {
+            this.list = list;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull final Consumer<? super E> action) {
+
+            if (remaining == 0) {
+                return false;
+            }
+
+            action.accept(list.head);
+            list = list.tail;
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull final Consumer<? super E> action) {
+
+            ConsList<E> current = list;
+            for (int i = remaining; i > 0; i--) {
+                action.accept(current.head);
+                current = current.tail;
+            }
+            list = current;
+            remaining = 0;
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<E> trySplit() {
+
+            if (remaining < MINIMUM_SPLIT_SIZE) {
+                return null;
+            }
+
+            final int half = remaining >>> 1;
+            final CellSpliterator<E> prefix = new CellSpliterator<>(list, half);
+            ConsList<E> middle = list;
+            for (int i = 0; i < half; i++) {
+                middle = middle.tail;
+            }
+            list = middle;
+            remaining -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+        }
+    }
+}
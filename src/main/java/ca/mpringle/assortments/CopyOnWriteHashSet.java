@@ -0,0 +1,318 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A thread safe hash set for sets read far more often than they change. The elements are
+ * held in an immutable open addressing table published through a volatile field, so a read
+ * is one volatile load followed by a plain lookup, with no locking, and any number of
+ * threads can read while a writer works.
+ * <p>
+ * Every change copies the table. {@link #mutate(Consumer)} hands a {@link Builder} to the
+ * consumer and publishes the result once it returns, so a batch of changes costs a single
+ * copy. Writers are serialized, so no change is lost, and a consumer may not change the set
+ * other than through its builder.
+ * <p>
+ * Iterators, streams and {@link #toString()} work on the table current when they start and
+ * never fail because of concurrent changes. Null elements are not permitted.
+ */
+@ThreadSafe
+public final class CopyOnWriteHashSet<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    private final Object lock = new Object();
+    // only read and written holding the lock, so it is only ever seen true by a writer
+    // that calls back into the set from inside its own consumer
+    private boolean mutating;
+    // replaced, never changed, so a reader sees either the whole of a change or none of it;
+    // read without locking but only replaced while holding the lock
+    @NotNull
+    private volatile Table table;
+
+    public CopyOnWriteHashSet() {
+        table = Table.EMPTY;
+    }
+
+    /**
+     * Applies every change the consumer makes to the builder, then publishes them together.
+     * Readers see the set as it was until the consumer returns. If it throws, the set is left
+     * as it was. The builder must not be used once the consumer returns.
+     *
+     * @throws IllegalStateException if called from inside the consumer of another mutation
+     *                               of this set, whose publication would overwrite it
+     */
+    public void mutate(@NotNull final Consumer<Builder<E>> changes) {
+
+        Checks.notNull(changes);
+
+        synchronized (lock) {
+            if (mutating) {
+                throw new IllegalStateException("The set cannot be changed from inside mutate, use the builder instead.");
+            }
+
+            final Builder<E> builder = new Builder<>(table);
+            mutating = true;
+            try {
+                changes.accept(builder);
+            } finally {
+                mutating = false;
+                builder.closed = true;
+            }
+            if (builder.changed) {
+                table = Table.of(builder.elements);
+            }
+        }
+    }
+
+    /**
+     * Adds the element with a copy of its own, prefer {@link #mutate(Consumer)} to add several.
+     */
+    public void add(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        mutate(builder -> builder.add(element));
+    }
+
+    /**
+     * Removes the element with a copy of its own, returning true if it was present.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        if (element == null || !contains(element)) {
+            return false;
+        }
+
+        final boolean[] removed = new boolean[1];
+        mutate(builder -> removed[0] = builder.remove(element));
+        return removed[0];
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        return element != null && table.contains(element);
+    }
+
+    @Override
+    public int size() {
+
+        return table.size;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return table.iterator();
+    }
+
+    /**
+     * Covers the table current when it is created, of a size known exactly.
+     */
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        final Table snapshot = table;
+        return Spliterators.spliterator(snapshot.iterator(), snapshot.size, Spliterator.DISTINCT | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final Table snapshot = table;
+        final StringBuilder builder = new StringBuilder("{");
+        for (final Iterator<E> iterator = snapshot.iterator(); iterator.hasNext(); ) {
+            builder.append(iterator.next()).append(", ");
+        }
+        if (snapshot.size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    /**
+     * The changes of one {@link #mutate(Consumer)} call, made to a private copy of the set.
+     * It is only valid inside the consumer it was handed to.
+     */
+    public static final class Builder<E extends Equals<?>> {
+
+        @NotNull
+        private final HashSet<E> elements;
+        private boolean changed;
+        private boolean closed;
+
+        private Builder(@NotNull final Table table) {
+
+            elements = HashSet.withExpectedSize(table.size);
+            for (final Iterator<E> iterator = table.iterator(); iterator.hasNext(); ) {
+                elements.add(iterator.next());
+            }
+        }
+
+        public void add(@NotNull final E element) {
+
+            checkOpen();
+            Checks.notNull(element);
+
+            if (!elements.contains(element)) {
+                elements.add(element);
+                changed = true;
+            }
+        }
+
+        @SafeVarargs
+        public final void addAll(@NotNull final E... elements) {
+
+            for (final E element : elements) {
+                add(element);
+            }
+        }
+
+        public boolean remove(@Nullable final E element) {
+
+            checkOpen();
+
+            final boolean removed = elements.remove(element);
+            changed |= removed;
+            return removed;
+        }
+
+        /**
+         * Removes every element, returning true if there were any.
+         */
+        public boolean clear() {
+
+            checkOpen();
+
+            final boolean removed = elements.removeIf(element -> true);
+            changed |= removed;
+            return removed;
+        }
+
+        public boolean contains(@Nullable final E element) {
+
+            checkOpen();
+
+            return elements.contains(element);
+        }
+
+        public int size() {
+
+            checkOpen();
+
+            return elements.size();
+        }
+
+        private void checkOpen() {
+
+            if (closed) {
+                throw new IllegalStateException("The builder cannot be used once mutate returns.");
+            }
+        }
+    }
+
+    /**
+     * An immutable {@link LinearProbing} table at most half full.
+     */
+    private static final class Table {
+
+        private static final Table EMPTY = new Table(new Object[1], new int[1], 0);
+
+        @NotNull
+        private final Object[] elements;
+        @NotNull
+        private final int[] hashes;
+        private final int size;
+
+        private Table(@NotNull final Object[] elements, @NotNull final int[] hashes, final int size) {
+            this.elements = elements;
+            this.hashes = hashes;
+            this.size = size;
+        }
+
+        @NotNull
+        private static Table of(@NotNull final HashSet<?> source) {
+
+            if (source.isEmpty()) {
+                return EMPTY;
+            }
+
+            final int capacity = Hashing.tableSizeFor(source.size() * 2);
+            final Object[] elements = new Object[capacity];
+            final int[] hashes = new int[capacity];
+            source.forEach(element -> {
+                final int hash = LinearProbing.hash(element);
+                final int slot = LinearProbing.freeSlot(hashes, hash);
+                elements[slot] = element;
+                hashes[slot] = hash;
+            });
+
+            return new Table(elements, hashes, source.size());
+        }
+
+        private boolean contains(@NotNull final Object element) {
+
+            final int hash = LinearProbing.hash((Equals<?>) element);
+            int slot = LinearProbing.match(hashes, hash, hash);
+            while (slot >= 0 && !isEqual(elements[slot], element)) {
+                slot = LinearProbing.match(hashes, hash, slot + 1);
+            }
+            return slot >= 0;
+        }
+
+        @NotNull
+        private <E> Iterator<E> iterator() {
+
+            return new Iterator<>() {
+
+                int slot = nextSlot(0);
+
+                @Override
+                public boolean hasNext() {
+                    return slot < elements.length;
+                }
+
+                @Override
+                @NotNull
+                @SuppressWarnings("unchecked")
+                public E next() {
+
+                    if (slot >= elements.length) {
+                        throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                    }
+
+                    final Object element = elements[slot];
+                    slot = nextSlot(slot + 1);
+                    return (E) element;
+                }
+            };
+        }
+
+        private int nextSlot(final int from) {
+
+            int slot = from;
+            while (slot < elements.length && elements[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+            return ((Equals) stored).isEqual(element);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of {@link Compares} elements in an array backed d-ary min heap, the
+ * smallest element is at the head. Each node has d children, so the heap is log_d(n)
+ * levels deep; a larger d makes offers cheaper and polls compare more children per level,
+ * but those children sit side by side in the array. The default of 4 suits most mixes.
+ * <p>
+ * {@link #heapify(int, Compares[])} builds a heap from an array in O(n). Elements that
+ * compare equal may both be queued, and are polled in no particular order. The iterator
+ * walks the heap array, which is not sorted. See {@link IndexedDaryHeap} for a heap whose
+ * entries can be reprioritized.
+ */
+public final class DaryHeap<E extends Compares<E>> extends AbstractAssortment<E> {
+
+    static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+    // some virtual machines cannot allocate arrays quite as long as Integer.MAX_VALUE
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final int arity;
+    @NotNull
+    private Object[] heap;
+    private int size;
+    // incremented on every change so iterators can fail fast
+    private int modifications;
+
+    public DaryHeap() {
+        this(DEFAULT_ARITY);
+    }
+
+    public DaryHeap(final int arity) {
+
+        Checks.notNullAnd(arity).isGreaterThanOrEqualTo(2, "arity must be >= 2");
+
+        this.arity = arity;
+        this.heap = new Object[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Builds a heap with the default arity from the elements in O(n).
+     */
+    @SafeVarargs
+    @NotNull
+    public static <E extends Compares<E>> DaryHeap<E> heapify(@NotNull final E... elements) {
+
+        return heapify(DEFAULT_ARITY, elements);
+    }
+
+    /**
+     * Builds a heap from the elements in O(n), sifting down every parent from the last one
+     * up rather than offering the elements one at a time.
+     */
+    @SafeVarargs
+    @NotNull
+    public static <E extends Compares<E>> DaryHeap<E> heapify(final int arity, @NotNull final E... elements) {
+
+        final DaryHeap<E> heap = new DaryHeap<>(arity);
+        Checks.notNull(elements);
+        for (final E element : elements) {
+            Checks.notNull(element);
+        }
+
+        heap.heap = Arrays.copyOf(elements, Math.max(DEFAULT_CAPACITY, elements.length), Object[].class);
+        heap.size = elements.length;
+        // the last parent is the parent of the last element
+        for (int parent = heap.size > 1 ? (heap.size - 2) / arity : -1; parent >= 0; parent--) {
+            heap.siftDown(parent, heap.heap[parent]);
+        }
+
+        return heap;
+    }
+
+    public void offer(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        if (size == heap.length) {
+            grow();
+        }
+        siftUp(size++, element);
+        modifications++;
+    }
+
+    /**
+     * Returns the smallest element, or null if the heap is empty.
+     */
+    @Nullable
+    public E peek() {
+
+        return cast(heap[0]);
+    }
+
+    /**
+     * Removes and returns the smallest element, or null if the heap is empty.
+     */
+    @Nullable
+    public E poll() {
+
+        if (size == 0) {
+            return null;
+        }
+
+        final E head = cast(heap[0]);
+        final Object last = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        modifications++;
+        return head;
+    }
+
+    public void clear() {
+
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int arity() {
+
+        return arity;
+    }
+
+    /**
+     * Walks the heap array, which is in heap order rather than sorted.
+     */
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @NotNull
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The heap was modified during iteration.");
+                }
+                if (index >= size) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                return cast(heap[index++]);
+            }
+        };
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(heap[i]).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Moves the hole at the index up past every larger parent, then fills it with the element.
+     */
+    private void siftUp(final int index, @NotNull final Object element) {
+
+        int hole = index;
+        while (hole > 0) {
+            final int parent = (hole - 1) / arity;
+            if (compare(element, heap[parent]) >= 0) {
+                break;
+            }
+            heap[hole] = heap[parent];
+            hole = parent;
+        }
+        heap[hole] = element;
+    }
+
+    /**
+     * Moves the hole at the index down past every smaller smallest child, then fills it with the element.
+     */
+    private void siftDown(final int index, @NotNull final Object element) {
+
+        int hole = index;
+        int firstChild;
+        while ((firstChild = hole * arity + 1) < size) {
+            final int lastChild = Math.min(firstChild + arity, size);
+            int smallest = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (compare(heap[child], heap[smallest]) < 0) {
+                    smallest = child;
+                }
+            }
+            if (compare(heap[smallest], element) >= 0) {
+                break;
+            }
+            heap[hole] = heap[smallest];
+            hole = smallest;
+        }
+        heap[hole] = element;
+    }
+
+    private void grow() {
+
+        if (heap.length >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("The heap cannot grow beyond " + MAXIMUM_CAPACITY + " elements.");
+        }
+
+        heap = Arrays.copyOf(heap, (int) Math.min(MAXIMUM_CAPACITY, heap.length + ((long) heap.length >> 1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Compares<Object>) stored).compareTo(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+}
@@ -0,0 +1,420 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * An immutable set whose elements are placed by a minimal perfect hash, made by
+ * {@link HashSet#freeze()} for tables built once and queried many times. Every element
+ * has a slot of its own in an array exactly as long as the set, so a lookup computes one
+ * hash, reads one slot and makes one {@link Equals#isEqual(Object)} call, hit or miss,
+ * with no probing.
+ * <p>
+ * The hash is built by hash and displace, as in CHD and PTHash. The spread hashes are split
+ * into buckets of {@link #BUCKET_SIZE} on average, skewed so that most hashes go to a few
+ * large buckets, and, largest bucket first, each bucket is given the first 16 bit
+ * displacement that sends all of its hashes to free positions in a table slightly longer
+ * than the set. Positions past the end of the set are remapped to the slots left free
+ * before it. The index is the displacement of every bucket and the small remap array,
+ * about 3 bits per element, and building it takes a microsecond or two per element.
+ * <p>
+ * A hash identifies a slot, so elements whose spread hashes are equal share one, and are
+ * searched one after another there.
+ */
+public final class FrozenHashSet<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    // the average number of hashes per bucket, more makes the index smaller and building slower
+    static final int BUCKET_SIZE = 6;
+    // the table is longer than the set by this fraction, so the last buckets still find room
+    private static final int SLACK_DIVISOR = 128;
+    private static final int MAXIMUM_DISPLACEMENT = Character.MAX_VALUE;
+    // seeds tried per bucket size before trying smaller buckets
+    private static final int SEED_ATTEMPTS = 8;
+    private static final int GOLDEN_RATIO = 0x9e3779b9;
+    // 60% of the hashes, those below this unsigned limit, go to the first 30% of the buckets,
+    // so the buckets placed first, while the table is empty, are the large ones
+    private static final long DENSE_HASH_LIMIT = 0x9999_9999L;
+    private static final int DENSE_BUCKET_PERCENT = 30;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private static final char[] NO_DISPLACEMENTS = new char[0];
+    private static final int[] NO_REMAPS = new int[0];
+
+    // a slot holds an element or a Group of elements with equal hashes
+    @NotNull
+    private final Object[] elements;
+    @NotNull
+    private final char[] displacements;
+    private final int denseBuckets;
+    // the slot of each position from elements.length up to tableSize
+    @NotNull
+    private final int[] remaps;
+    private final int tableSize;
+    private final int seed;
+    private final int size;
+
+    private FrozenHashSet(@NotNull final Object[] elements,
+                          @NotNull final char[] displacements,
+                          final int denseBuckets,
+                          @NotNull final int[] remaps,
+                          final int tableSize,
+                          final int seed,
+                          final int size) {
+
+        this.elements = elements;
+        this.displacements = displacements;
+        this.denseBuckets = denseBuckets;
+        this.remaps = remaps;
+        this.tableSize = tableSize;
+        this.seed = seed;
+        this.size = size;
+    }
+
+    /**
+     * Builds a set of the first count elements of the array, which must be distinct and not null.
+     */
+    @NotNull
+    static <E extends Equals<?>> FrozenHashSet<E> of(@NotNull final Object[] elements, final int count) {
+
+        if (count == 0) {
+            return new FrozenHashSet<>(NO_ELEMENTS, NO_DISPLACEMENTS, 0, NO_REMAPS, 0, 0, 0);
+        }
+
+        // sorting on the hash, with the index below it, brings elements of equal hashes together
+        final long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (long) hash(elements[i]) << 32 | i;
+        }
+        Arrays.sort(sorted);
+
+        int keyCount = 0;
+        final int[] hashes = new int[count];
+        final Object[] values = new Object[count];
+        for (int i = 0; i < count; ) {
+            int end = i + 1;
+            while (end < count && sorted[end] >>> 32 == sorted[i] >>> 32) {
+                end++;
+            }
+
+            hashes[keyCount] = (int) (sorted[i] >>> 32);
+            if (end - i == 1) {
+                values[keyCount] = elements[(int) sorted[i]];
+            } else {
+                final Object[] group = new Object[end - i];
+                for (int j = i; j < end; j++) {
+                    group[j - i] = elements[(int) sorted[j]];
+                }
+                values[keyCount] = new Group(group);
+            }
+            keyCount++;
+            i = end;
+        }
+
+        final int tableSize = keyCount + keyCount / SLACK_DIVISOR + 1;
+        int seed = 0;
+        for (int bucketSize = BUCKET_SIZE; ; bucketSize = Math.max(1, bucketSize - 1)) {
+            for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+                final FrozenHashSet<E> set = build(hashes, values, keyCount, count, bucketSize, tableSize, seed);
+                if (set != null) {
+                    return set;
+                }
+                seed += GOLDEN_RATIO;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null || size == 0) {
+            return false;
+        }
+
+        final int hash = hash(element);
+        final char displacement = displacements[bucket(hash, denseBuckets, displacements.length)];
+        int slot = fastRange(mix(hash, seed, displacement), tableSize);
+        if (slot >= elements.length) {
+            slot = remaps[slot - elements.length];
+        }
+
+        final Object stored = elements[slot];
+        if (stored instanceof Group) {
+            for (final Object grouped : ((Group) stored).elements) {
+                if (isEqual(grouped, element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return isEqual(stored, element);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * The bits held by the index, the displacements and remaps, excluding the element array.
+     */
+    long indexBits() {
+
+        return (long) displacements.length * Character.SIZE + (long) remaps.length * Integer.SIZE;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            int slot = 0;
+            int grouped = 0;
+
+            @Override
+            public boolean hasNext() {
+                return slot < elements.length;
+            }
+
+            @Override
+            @NotNull
+            public E next() {
+
+                if (slot >= elements.length) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                final Object stored = elements[slot];
+                if (stored instanceof Group) {
+                    final Object[] group = ((Group) stored).elements;
+                    final Object element = group[grouped++];
+                    if (grouped == group.length) {
+                        grouped = 0;
+                        slot++;
+                    }
+                    return cast(element);
+                }
+
+                slot++;
+                return cast(stored);
+            }
+        };
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return Spliterators.spliterator(iterator(), size, Spliterator.DISTINCT | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (final E element : this) {
+            builder.append(element).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    /**
+     * Places every key with the given bucket size and seed, or returns null if some bucket
+     * finds no displacement that fits.
+     */
+    @Nullable
+    private static <E extends Equals<?>> FrozenHashSet<E> build(@NotNull final int[] hashes,
+                                                                @NotNull final Object[] values,
+                                                                final int keyCount,
+                                                                final int size,
+                                                                final int bucketSize,
+                                                                final int tableSize,
+                                                                final int seed) {
+
+        final int bucketCount = (keyCount + bucketSize - 1) / bucketSize;
+        final int denseBuckets = (int) ((long) bucketCount * DENSE_BUCKET_PERCENT / 100);
+
+        // the keys of bucket b are keysByBucket[bucketStarts[b]] up to keysByBucket[bucketStarts[b + 1]]
+        final int[] bucketStarts = new int[bucketCount + 1];
+        for (int key = 0; key < keyCount; key++) {
+            bucketStarts[bucket(hashes[key], denseBuckets, bucketCount) + 1]++;
+        }
+        int largest = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            largest = Math.max(largest, bucketStarts[bucket + 1]);
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        final int[] keysByBucket = new int[keyCount];
+        final int[] cursors = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int key = 0; key < keyCount; key++) {
+            keysByBucket[cursors[bucket(hashes[key], denseBuckets, bucketCount)]++] = key;
+        }
+
+        // buckets counting sorted from the largest down, the large ones are hardest to place
+        final int[] bucketsBySize = new int[bucketCount];
+        final int[] sizeStarts = new int[largest + 2];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            sizeStarts[largest - bucketSize(bucketStarts, bucket) + 1]++;
+        }
+        for (int i = 1; i < sizeStarts.length; i++) {
+            sizeStarts[i] += sizeStarts[i - 1];
+        }
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketsBySize[sizeStarts[largest - bucketSize(bucketStarts, bucket)]++] = bucket;
+        }
+
+        final char[] displacements = new char[bucketCount];
+        final int[] positions = new int[tableSize];
+        Arrays.fill(positions, -1);
+        // a bit per position, small enough to stay in cache while the displacements are searched
+        final long[] taken = new long[(tableSize + Long.SIZE - 1) / Long.SIZE];
+        final int[] bucketHashes = new int[largest];
+        final int[] candidates = new int[largest];
+        for (final int bucket : bucketsBySize) {
+            final int start = bucketStarts[bucket];
+            final int length = bucketStarts[bucket + 1] - start;
+            if (length == 0) {
+                break;
+            }
+
+            for (int i = 0; i < length; i++) {
+                bucketHashes[i] = hashes[keysByBucket[start + i]];
+            }
+            int displacement = 0;
+            while (!fits(bucketHashes, length, seed, displacement, taken, tableSize, candidates)) {
+                if (++displacement > MAXIMUM_DISPLACEMENT) {
+                    return null;
+                }
+            }
+            displacements[bucket] = (char) displacement;
+            for (int i = 0; i < length; i++) {
+                positions[candidates[i]] = keysByBucket[start + i];
+                taken[candidates[i] >>> 6] |= 1L << candidates[i];
+            }
+        }
+
+        // positions past the key count take the slots left free before it, in order
+        final Object[] elements = new Object[keyCount];
+        final int[] remaps = new int[tableSize - keyCount];
+        int free = 0;
+        for (int position = keyCount; position < tableSize; position++) {
+            if (positions[position] < 0) {
+                continue;
+            }
+            while (positions[free] >= 0) {
+                free++;
+            }
+            remaps[position - keyCount] = free;
+            elements[free++] = values[positions[position]];
+        }
+        for (int position = 0; position < keyCount; position++) {
+            if (positions[position] >= 0) {
+                elements[position] = values[positions[position]];
+            }
+        }
+
+        return new FrozenHashSet<>(elements, displacements, denseBuckets, remaps, tableSize, seed, size);
+    }
+
+    /**
+     * Computes the positions of the keys of a bucket under the displacement into candidates,
+     * returning whether they are all free and distinct.
+     */
+    private static boolean fits(@NotNull final int[] bucketHashes,
+                                final int length,
+                                final int seed,
+                                final int displacement,
+                                @NotNull final long[] taken,
+                                final int tableSize,
+                                @NotNull final int[] candidates) {
+
+        for (int i = 0; i < length; i++) {
+            final int position = fastRange(mix(bucketHashes[i], seed, displacement), tableSize);
+            if ((taken[position >>> 6] & 1L << position) != 0) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (candidates[j] == position) {
+                    return false;
+                }
+            }
+            candidates[i] = position;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bucket of a hash, rehashed by an odd multiplier so that the bits picking
+     * the bucket are not the bits compared with the dense limit.
+     */
+    private static int bucket(final int hash, final int denseBuckets, final int bucketCount) {
+
+        return (hash & 0xffffffffL) < DENSE_HASH_LIMIT
+                ? fastRange(hash * GOLDEN_RATIO, denseBuckets)
+                : denseBuckets + fastRange(hash * GOLDEN_RATIO, bucketCount - denseBuckets);
+    }
+
+    private static int bucketSize(@NotNull final int[] bucketStarts, final int bucket) {
+
+        return bucketStarts[bucket + 1] - bucketStarts[bucket];
+    }
+
+    private static int hash(@NotNull final Object element) {
+
+        return Hashing.spread(((Equals<?>) element).computeHash());
+    }
+
+    /**
+     * Rehashes a spread hash for a displacement with one multiply, as only the high bits are
+     * used. Distinct hashes stay distinct, as the xor and the odd multiplier are bijections.
+     */
+    private static int mix(final int hash, final int seed, final int displacement) {
+
+        return (hash ^ seed ^ displacement * GOLDEN_RATIO) * 0x85ebca6b;
+    }
+
+    /**
+     * Maps a hash onto [0, range) by its high bits, a multiply in place of a division.
+     */
+    private static int fastRange(final int hash, final int range) {
+
+        return (int) ((hash & 0xffffffffL) * range >>> 32);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@NotNull final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Elements sharing a slot because their spread hashes are equal.
+     */
+    private static final class Group {
+
+        @NotNull
+        private final Object[] elements;
+
+        private Group(@NotNull final Object[] elements) {
+            this.elements = elements;
+        }
+    }
+}
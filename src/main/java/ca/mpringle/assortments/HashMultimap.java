@@ -0,0 +1,540 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A hash map from {@link Equals} keys to groups of {@link Equals} values, kept in insertion
+ * order per key, duplicates included. The keys are found the way {@link HashMap} finds
+ * them, by linear probing over the cached spread hashes of {@link Hashing}, and the table
+ * grows and shrinks by the default {@link ResizePolicy}.
+ * <p>
+ * A key with a single value stores it inline in its slot, with no collection at all. Only
+ * a second value moves the group into an {@code Object[]}, which doubles as it fills, so a
+ * table in which most keys have one value costs little more than a {@link HashMap}.
+ * <p>
+ * {@link #get(Equals)} returns a live view of the values of a key rather than a copy.
+ */
+public final class HashMultimap<K extends Equals<?>, V extends Equals<?>> extends AbstractEquals<HashMultimap<K, V>> {
+
+    // this value must be a power of two
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int INITIAL_VALUES_CAPACITY = 4;
+    private static final ResizePolicy RESIZE_POLICY = ResizePolicy.defaults();
+
+    // the table never shrinks below the capacity it was created with
+    private final int minimumCapacity;
+
+    @NotNull
+    private Object[] keys;
+    // a 0 hash marks an empty slot, the table always contains at least one empty slot
+    @NotNull
+    private int[] hashes;
+    // the value itself when a key has one value, otherwise an Object[] of its values
+    @NotNull
+    private Object[] values;
+    // the number of values of the key in the same slot
+    @NotNull
+    private int[] counts;
+    private int keyCount;
+    private int size;
+    // incremented on every change so views and iterations can fail fast
+    private int modifications;
+
+    public HashMultimap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity rounded up to the next power of two, the table never shrinks below it
+     */
+    public HashMultimap(final int initialCapacity) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThan(0, "initial capacity must be > 0");
+
+        final int capacity = RESIZE_POLICY.initialCapacity(initialCapacity);
+        this.minimumCapacity = capacity;
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Adds the value to the values of the key.
+     */
+    public void put(@NotNull final K key, @NotNull final V value) {
+
+        Checks.notNull(key);
+        Checks.notNull(value);
+
+        final int hash = LinearProbing.hash(key);
+        final int slot = findSlot(key, hash);
+        if (slot < 0) {
+            insert(key, value, hash, ~slot);
+        } else {
+            append(slot, value);
+        }
+        size++;
+        modifications++;
+    }
+
+    /**
+     * Adds every value of the stream to the values of the key the function returns for it,
+     * grouping the stream by key.
+     */
+    public void putAll(@NotNull final Stream<? extends V> values, @NotNull final Function<? super V, ? extends K> keyFunction) {
+
+        Checks.notNull(values);
+        Checks.notNull(keyFunction);
+
+        values.forEachOrdered(value -> put(keyFunction.apply(value), value));
+    }
+
+    /**
+     * Returns a view of the values of the key, in the order they were added. The view is
+     * empty while the key has no values and follows later changes to this multimap.
+     */
+    @NotNull
+    public AbstractAssortment<V> get(@NotNull final K key) {
+
+        return new Values(Checks.notNull(key));
+    }
+
+    /**
+     * Removes the first value of the key equal to the given one, returning true if there was one.
+     */
+    public boolean remove(@Nullable final K key, @Nullable final V value) {
+
+        if (key == null || value == null) {
+            return false;
+        }
+
+        final int slot = findSlot(key, LinearProbing.hash(key));
+        if (slot < 0) {
+            return false;
+        }
+
+        final int count = counts[slot];
+        if (count == 1) {
+            if (!isEqual(values[slot], value)) {
+                return false;
+            }
+            deleteKey(slot);
+        } else {
+            final Object[] group = (Object[]) values[slot];
+            int index = 0;
+            while (index < count && !isEqual(group[index], value)) {
+                index++;
+            }
+            if (index == count) {
+                return false;
+            }
+            System.arraycopy(group, index + 1, group, index, count - index - 1);
+            group[count - 1] = null;
+            counts[slot] = count - 1;
+            // a single remaining value moves back inline
+            if (count == 2) {
+                values[slot] = group[0];
+            }
+        }
+        size--;
+        modifications++;
+
+        return true;
+    }
+
+    /**
+     * Removes the key with all its values, returning the number of values removed.
+     */
+    public int removeAll(@Nullable final K key) {
+
+        if (key == null) {
+            return 0;
+        }
+
+        final int slot = findSlot(key, LinearProbing.hash(key));
+        if (slot < 0) {
+            return 0;
+        }
+
+        final int count = counts[slot];
+        deleteKey(slot);
+        size -= count;
+        modifications++;
+
+        return count;
+    }
+
+    public boolean containsKey(@Nullable final K key) {
+
+        return key != null && findSlot(key, LinearProbing.hash(key)) >= 0;
+    }
+
+    /**
+     * The number of values across all keys.
+     */
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * The number of keys with at least one value.
+     */
+    public int keyCount() {
+
+        return keyCount;
+    }
+
+    int capacity() {
+
+        return hashes.length;
+    }
+
+    /**
+     * Passes every key and value pair to the action, keys in table order and the values of
+     * each key in the order they were added, without allocating.
+     */
+    public void forEach(@NotNull final BiConsumer<? super K, ? super V> action) {
+
+        Checks.notNull(action);
+
+        final int expectedModifications = modifications;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == null) {
+                continue;
+            }
+            final K key = cast(keys[slot]);
+            if (counts[slot] == 1) {
+                action.accept(key, cast(values[slot]));
+            } else {
+                final Object[] group = (Object[]) values[slot];
+                for (int index = 0; index < counts[slot]; index++) {
+                    action.accept(key, cast(group[index]));
+                }
+            }
+        }
+        if (modifications != expectedModifications) {
+            throw new ConcurrentModificationException("The multimap was modified during iteration.");
+        }
+    }
+
+    /**
+     * Equal to a multimap with equal keys, each with equal values in the same order.
+     */
+    @Override
+    public boolean isEqual(@Nullable final HashMultimap<K, V> instance) {
+
+        if (instance == null) {
+            return false;
+        }
+        if (size != instance.size || keyCount != instance.keyCount) {
+            return false;
+        }
+
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] == 0) {
+                continue;
+            }
+            final int otherSlot = instance.findSlot(keys[slot], hashes[slot]);
+            if (otherSlot < 0 || counts[slot] != instance.counts[otherSlot]) {
+                return false;
+            }
+            for (int index = 0; index < counts[slot]; index++) {
+                if (!isEqual(valueAt(slot, index), instance.valueAt(otherSlot, index))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sums {@code keyHash ^ valuesHash} over the keys, where the values hash sums the hashes
+     * of the values of the key.
+     */
+    @Override
+    public int computeHash() {
+
+        int hash = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                int valuesHash = 0;
+                for (int index = 0; index < counts[slot]; index++) {
+                    valuesHash += ((Equals<?>) valueAt(slot, index)).computeHash();
+                }
+                hash += ((Equals<?>) keys[slot]).computeHash() ^ valuesHash;
+            }
+        }
+
+        return hash;
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                builder.append(keys[slot]).append("=").append(valuesToString(slot)).append(", ");
+            }
+        }
+        if (keyCount > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    @NotNull
+    private String valuesToString(final int slot) {
+
+        final StringBuilder builder = new StringBuilder("[");
+        for (int index = 0; index < counts[slot]; index++) {
+            if (index > 0) {
+                builder.append(", ");
+            }
+            builder.append(valueAt(slot, index));
+        }
+
+        return builder.append("]").toString();
+    }
+
+    @NotNull
+    private Object valueAt(final int slot, final int index) {
+
+        return counts[slot] == 1 ? values[slot] : ((Object[]) values[slot])[index];
+    }
+
+    /**
+     * Adds a value to a key that already has at least one, moving a single inline value into
+     * an array first.
+     */
+    private void append(final int slot, @NotNull final Object value) {
+
+        final int count = counts[slot];
+        Object[] group;
+        if (count == 1) {
+            group = new Object[INITIAL_VALUES_CAPACITY];
+            group[0] = values[slot];
+            values[slot] = group;
+        } else {
+            group = (Object[]) values[slot];
+            if (count == group.length) {
+                group = Arrays.copyOf(group, Math.addExact(count, count));
+                values[slot] = group;
+            }
+        }
+        group[count] = value;
+        counts[slot] = count + 1;
+    }
+
+    /**
+     * Returns the slot holding a key equal to the given one, or if there is none the bitwise
+     * complement of the empty slot that ended the probe, see {@link HashMap}.
+     */
+    private int findSlot(@NotNull final Object key, final int hash) {
+
+        int slot = LinearProbing.match(hashes, hash, hash);
+        while (slot >= 0 && keys[slot] != key && !isEqual(keys[slot], key)) {
+            slot = LinearProbing.match(hashes, hash, slot + 1);
+        }
+
+        return slot;
+    }
+
+    private void insert(@NotNull final Object key, @NotNull final Object value, final int hash, final int emptySlot) {
+
+        if (RESIZE_POLICY.shouldGrow(keyCount + 1, hashes.length)) {
+            rehash(RESIZE_POLICY.grownCapacity(hashes.length));
+            place(key, value, 1, hash);
+        } else {
+            keys[emptySlot] = key;
+            hashes[emptySlot] = hash;
+            values[emptySlot] = value;
+            counts[emptySlot] = 1;
+        }
+        keyCount++;
+    }
+
+    private void deleteKey(final int slot) {
+
+        deleteSlot(slot);
+        keyCount--;
+
+        if (RESIZE_POLICY.shouldShrink(keyCount, hashes.length)) {
+            final int newCapacity = RESIZE_POLICY.shrunkCapacity(keyCount, hashes.length, minimumCapacity);
+            if (newCapacity != hashes.length) {
+                rehash(newCapacity);
+            }
+        }
+    }
+
+    private void rehash(final int newCapacity) {
+
+        final Object[] oldKeys = keys;
+        final int[] oldHashes = hashes;
+        final Object[] oldValues = values;
+        final int[] oldCounts = counts;
+
+        keys = new Object[newCapacity];
+        hashes = new int[newCapacity];
+        values = new Object[newCapacity];
+        counts = new int[newCapacity];
+
+        for (int slot = 0; slot < oldHashes.length; slot++) {
+            if (oldHashes[slot] != 0) {
+                place(oldKeys[slot], oldValues[slot], oldCounts[slot], oldHashes[slot]);
+            }
+        }
+    }
+
+    /**
+     * Empties a slot and shifts later members of the same cluster back into the hole, see
+     * {@link LinearProbing}.
+     */
+    private void deleteSlot(final int slot) {
+
+        int hole = slot;
+        for (int candidate; (candidate = LinearProbing.nextShift(hashes, hole)) >= 0; hole = candidate) {
+            keys[hole] = keys[candidate];
+            hashes[hole] = hashes[candidate];
+            values[hole] = values[candidate];
+            counts[hole] = counts[candidate];
+        }
+
+        keys[hole] = null;
+        hashes[hole] = 0;
+        values[hole] = null;
+        counts[hole] = 0;
+    }
+
+    /**
+     * Places a key known not to be present into the first free slot of its probe sequence.
+     */
+    private void place(@NotNull final Object key, @NotNull final Object value, final int count, final int hash) {
+
+        final int slot = LinearProbing.freeSlot(hashes, hash);
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        counts[slot] = count;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(@Nullable final Object object) {
+
+        return (T) object;
+    }
+
+    /**
+     * The values of one key, read in place from the table. The slot of the key is looked up
+     * afresh by each method, so the view stays valid as the table changes.
+     */
+    private final class Values extends AbstractAssortment<V> {
+
+        @NotNull
+        private final K key;
+
+        private Values(@NotNull final K key) {
+            this.key = key;
+        }
+
+        @Override
+        public int size() {
+
+            final int slot = findSlot(key, LinearProbing.hash(key));
+            return slot < 0 ? 0 : counts[slot];
+        }
+
+        @Override
+        public boolean contains(@Nullable final V value) {
+
+            if (value == null) {
+                return false;
+            }
+
+            final int slot = findSlot(key, LinearProbing.hash(key));
+            for (int index = 0; slot >= 0 && index < counts[slot]; index++) {
+                if (HashMultimap.isEqual(valueAt(slot, index), value)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        @NotNull
+        public Iterator<V> iterator() {
+
+            final int slot = findSlot(key, LinearProbing.hash(key));
+
+            return new Iterator<>() {
+
+                final int expectedModifications = modifications;
+                final int count = slot < 0 ? 0 : counts[slot];
+                int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < count;
+                }
+
+                @Override
+                @NotNull
+                public V next() {
+
+                    if (modifications != expectedModifications) {
+                        throw new ConcurrentModificationException("The multimap was modified during iteration.");
+                    }
+                    if (index >= count) {
+                        throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                    }
+
+                    return cast(valueAt(slot, index++));
+                }
+            };
+        }
+
+        @Override
+        @NotNull
+        public Spliterator<V> spliterator() {
+
+            return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            final int slot = findSlot(key, LinearProbing.hash(key));
+            return slot < 0 ? "[]" : valuesToString(slot);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A multiset, or bag, that counts occurrences of {@link Equals} elements. The table is laid
+ * out like {@link HashMap}, with the counts kept in an {@code int[]} parallel to the
+ * elements and their cached hashes, so counting never boxes and an increment touches no
+ * object but the element being counted.
+ * <p>
+ * A multiset is not an assortment, as an assortment compares only distinct elements and
+ * could not be equal to a multiset both ways round. {@link #size()} and
+ * {@link #contains(Equals)} ignore the counts, which are read with {@link #count(Equals)},
+ * {@link #forEachEntry(ObjIntConsumer)} and {@link #entriesSortedByCount()}, and
+ * {@link #elementSet()} views the distinct elements as an assortment. Two multisets are
+ * equal when they count the same elements the same number of times.
+ */
+public final class HashMultiset<E extends Equals<?>> extends AbstractEquals<HashMultiset<E>> {
+
+    // this value must be a power of two
+    private static final int INITIAL_CAPACITY = 4;
+    private static final ResizePolicy RESIZE_POLICY = ResizePolicy.defaults();
+
+    // the table never shrinks below the capacity it was created with
+    private final int minimumCapacity;
+
+    @NotNull
+    private Object[] elements;
+    // a 0 hash marks an empty slot, the table always contains at least one empty slot
+    @NotNull
+    private int[] hashes;
+    // the count of the element in the same slot, always > 0 for an occupied slot
+    @NotNull
+    private int[] counts;
+    private int size;
+    private long totalCount;
+    // incremented on every structural change so iterators can fail fast
+    private int modifications;
+
+    public HashMultiset() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity rounded up to the next power of two, the table never shrinks below it
+     */
+    public HashMultiset(final int initialCapacity) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThan(0, "initial capacity must be > 0");
+
+        final int capacity = RESIZE_POLICY.initialCapacity(initialCapacity);
+        this.minimumCapacity = capacity;
+        elements = new Object[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Creates a multiset whose table holds the expected number of distinct elements without growing.
+     */
+    @NotNull
+    public static <E extends Equals<?>> HashMultiset<E> withExpectedSize(final int expectedSize) {
+
+        Checks.notNullAnd(expectedSize).isGreaterThanOrEqualTo(0, "expected size must be >= 0");
+
+        return new HashMultiset<>(RESIZE_POLICY.capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds one occurrence of the element.
+     */
+    public void add(@NotNull final E element) {
+
+        add(element, 1);
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element, 1);
+        }
+    }
+
+    /**
+     * Adds occurrences of the element, returning its count before they were added.
+     *
+     * @throws ArithmeticException if the count would overflow an int
+     */
+    public int add(@NotNull final E element, final int occurrences) {
+
+        Checks.notNull(element);
+        Checks.notNullAnd(occurrences).isGreaterThanOrEqualTo(0, "occurrences must be >= 0");
+
+        final int hash = LinearProbing.hash(element);
+        final int slot = findSlot(element, hash);
+        if (slot >= 0) {
+            final int previous = counts[slot];
+            counts[slot] = Math.addExact(previous, occurrences);
+            totalCount += occurrences;
+            return previous;
+        }
+
+        if (occurrences > 0) {
+            insert(element, occurrences, hash, ~slot);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Removes one occurrence of the element, returning true if there was one.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        return remove(element, 1) > 0;
+    }
+
+    /**
+     * Removes up to the given number of occurrences of the element, returning its count
+     * before they were removed. The element is gone once its count reaches 0.
+     */
+    public int remove(@Nullable final E element, final int occurrences) {
+
+        Checks.notNullAnd(occurrences).isGreaterThanOrEqualTo(0, "occurrences must be >= 0");
+        if (element == null) {
+            return 0;
+        }
+
+        final int slot = findSlot(element, LinearProbing.hash(element));
+        if (slot < 0) {
+            return 0;
+        }
+
+        final int previous = counts[slot];
+        if (occurrences < previous) {
+            counts[slot] = previous - occurrences;
+            totalCount -= occurrences;
+        } else {
+            delete(slot);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Sets the count of the element, returning its previous count. A count of 0 removes it.
+     */
+    public int setCount(@NotNull final E element, final int count) {
+
+        Checks.notNull(element);
+        Checks.notNullAnd(count).isGreaterThanOrEqualTo(0, "count must be >= 0");
+
+        final int hash = LinearProbing.hash(element);
+        final int slot = findSlot(element, hash);
+        if (slot < 0) {
+            if (count > 0) {
+                insert(element, count, hash, ~slot);
+            }
+            return 0;
+        }
+
+        final int previous = counts[slot];
+        if (count == 0) {
+            delete(slot);
+        } else {
+            counts[slot] = count;
+            totalCount += count - previous;
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns the number of occurrences of the element, 0 if it is absent.
+     */
+    public int count(@Nullable final E element) {
+
+        if (element == null) {
+            return 0;
+        }
+
+        final int slot = findSlot(element, LinearProbing.hash(element));
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    public boolean contains(@Nullable final E element) {
+
+        return element != null && findSlot(element, LinearProbing.hash(element)) >= 0;
+    }
+
+    /**
+     * The number of distinct elements.
+     */
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * The sum of the counts of all elements.
+     */
+    public long totalCount() {
+
+        return totalCount;
+    }
+
+    int capacity() {
+
+        return hashes.length;
+    }
+
+    /**
+     * Passes every distinct element with its count to the action, in table order, without
+     * allocating.
+     */
+    public void forEachEntry(@NotNull final ObjIntConsumer<? super E> action) {
+
+        Checks.notNull(action);
+
+        final int expectedModifications = modifications;
+        final Object[] table = elements;
+        final int[] tableCounts = counts;
+        for (int slot = 0; slot < table.length; slot++) {
+            if (table[slot] != null) {
+                action.accept(cast(table[slot]), tableCounts[slot]);
+            }
+        }
+        if (modifications != expectedModifications) {
+            throw new ConcurrentModificationException("The multiset was modified during iteration.");
+        }
+    }
+
+    /**
+     * Returns a snapshot of the elements and their counts, the most frequent first. Elements
+     * with the same count are in no particular order.
+     */
+    @NotNull
+    public ArrayList<Entry<E>> entriesSortedByCount() {
+
+        @SuppressWarnings({"unchecked", "rawtypes"}) final Entry<E>[] entries = new Entry[size];
+        int i = 0;
+        for (int slot = 0; slot < elements.length; slot++) {
+            if (elements[slot] != null) {
+                entries[i++] = new Entry<>(cast(elements[slot]), counts[slot]);
+            }
+        }
+        Arrays.sort(entries, Comparator.comparingInt((Entry<E> entry) -> entry.count).reversed());
+
+        final ArrayList<Entry<E>> sorted = new ArrayList<>(size);
+        sorted.addAll(entries);
+        return sorted;
+    }
+
+    /**
+     * Returns a read-only view of the distinct elements, iterated in table order. The view
+     * follows later changes to this multiset and compares as any other assortment, ignoring
+     * the counts.
+     */
+    @NotNull
+    public AbstractAssortment<E> elementSet() {
+
+        return new ElementSet();
+    }
+
+    /**
+     * Equal to a multiset that counts the same elements the same number of times.
+     */
+    @Override
+    public boolean isEqual(@Nullable final HashMultiset<E> instance) {
+
+        if (instance == null) {
+            return false;
+        }
+        if (size != instance.size || totalCount != instance.totalCount) {
+            return false;
+        }
+
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] != 0) {
+                final int otherSlot = instance.findSlot(elements[slot], hashes[slot]);
+                if (otherSlot < 0 || instance.counts[otherSlot] != counts[slot]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sums {@code elementHash ^ count} over the distinct elements.
+     */
+    @Override
+    public int computeHash() {
+
+        int hash = 0;
+        for (int slot = 0; slot < elements.length; slot++) {
+            if (elements[slot] != null) {
+                hash += ((Equals<?>) elements[slot]).computeHash() ^ counts[slot];
+            }
+        }
+
+        return hash;
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (int slot = 0; slot < elements.length; slot++) {
+            if (elements[slot] != null) {
+                builder.append(elements[slot]).append("=").append(counts[slot]).append(", ");
+            }
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    private int nextSlot(final int from) {
+
+        int slot = from;
+        while (slot < elements.length && elements[slot] == null) {
+            slot++;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns the slot holding an element equal to the given one, or if there is none the
+     * bitwise complement of the empty slot that ended the probe, see {@link HashMap}.
+     */
+    private int findSlot(@NotNull final Object element, final int hash) {
+
+        int slot = LinearProbing.match(hashes, hash, hash);
+        while (slot >= 0 && elements[slot] != element && !isEqual(elements[slot], element)) {
+            slot = LinearProbing.match(hashes, hash, slot + 1);
+        }
+
+        return slot;
+    }
+
+    private void insert(@NotNull final Object element, final int count, final int hash, final int emptySlot) {
+
+        if (RESIZE_POLICY.shouldGrow(size + 1, hashes.length)) {
+            rehash(RESIZE_POLICY.grownCapacity(hashes.length));
+            place(elements, hashes, counts, element, count, hash);
+        } else {
+            elements[emptySlot] = element;
+            hashes[emptySlot] = hash;
+            counts[emptySlot] = count;
+        }
+        size++;
+        totalCount += count;
+        modifications++;
+    }
+
+    /**
+     * Removes the element in the slot with all its occurrences.
+     */
+    private void delete(final int slot) {
+
+        totalCount -= counts[slot];
+        deleteSlot(slot);
+        size--;
+        modifications++;
+
+        if (RESIZE_POLICY.shouldShrink(size, hashes.length)) {
+            final int newCapacity = RESIZE_POLICY.shrunkCapacity(size, hashes.length, minimumCapacity);
+            if (newCapacity != hashes.length) {
+                rehash(newCapacity);
+            }
+        }
+    }
+
+    private void rehash(final int newCapacity) {
+
+        final Object[] oldElements = elements;
+        final int[] oldHashes = hashes;
+        final int[] oldCounts = counts;
+
+        elements = new Object[newCapacity];
+        hashes = new int[newCapacity];
+        counts = new int[newCapacity];
+
+        for (int slot = 0; slot < oldHashes.length; slot++) {
+            if (oldHashes[slot] != 0) {
+                place(elements, hashes, counts, oldElements[slot], oldCounts[slot], oldHashes[slot]);
+            }
+        }
+    }
+
+    /**
+     * Empties a slot and shifts later members of the same cluster back into the hole, see
+     * {@link LinearProbing}.
+     */
+    private void deleteSlot(final int slot) {
+
+        int hole = slot;
+        for (int candidate; (candidate = LinearProbing.nextShift(hashes, hole)) >= 0; hole = candidate) {
+            elements[hole] = elements[candidate];
+            hashes[hole] = hashes[candidate];
+            counts[hole] = counts[candidate];
+        }
+
+        elements[hole] = null;
+        hashes[hole] = 0;
+        counts[hole] = 0;
+    }
+
+    private static void place(@NotNull final Object[] tableElements,
+                              @NotNull final int[] tableHashes,
+                              @NotNull final int[] tableCounts,
+                              @NotNull final Object element,
+                              final int count,
+                              final int hash) {
+
+        final int slot = LinearProbing.freeSlot(tableHashes, hash);
+        tableElements[slot] = element;
+        tableHashes[slot] = hash;
+        tableCounts[slot] = count;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(@Nullable final Object object) {
+
+        return (T) object;
+    }
+
+    /**
+     * The distinct elements, read in place from the table.
+     */
+    private final class ElementSet extends AbstractAssortment<E> {
+
+        @Override
+        public int size() {
+
+            return size;
+        }
+
+        @Override
+        public boolean contains(@Nullable final E element) {
+
+            return HashMultiset.this.contains(element);
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> iterator() {
+
+            return new Iterator<>() {
+
+                final int expectedModifications = modifications;
+                int slot = nextSlot(0);
+
+                @Override
+                public boolean hasNext() {
+                    return slot < elements.length;
+                }
+
+                @Override
+                @NotNull
+                public E next() {
+
+                    if (modifications != expectedModifications) {
+                        throw new ConcurrentModificationException("The multiset was modified during iteration.");
+                    }
+                    if (slot >= elements.length) {
+                        throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                    }
+
+                    final E element = cast(elements[slot]);
+                    slot = nextSlot(slot + 1);
+                    return element;
+                }
+            };
+        }
+
+        @Override
+        @NotNull
+        public Spliterator<E> spliterator() {
+
+            return Spliterators.spliterator(iterator(), size, Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            return elementsToString();
+        }
+    }
+
+    /**
+     * An element and its count at the time the entry was created.
+     */
+    public static final class Entry<E extends Equals<?>> extends AbstractEquals<Entry<E>> {
+
+        @NotNull
+        private final E element;
+        private final int count;
+
+        private Entry(@NotNull final E element, final int count) {
+            this.element = element;
+            this.count = count;
+        }
+
+        @NotNull
+        public E getElement() {
+
+            return element;
+        }
+
+        public int getCount() {
+
+            return count;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public boolean isEqual(@Nullable final Entry<E> instance) {
+
+            return instance != null && count == instance.count && ((Equals) element).isEqual(instance.element);
+        }
+
+        @Override
+        public int computeHash() {
+
+            return element.computeHash() ^ count;
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            return element + "=" + count;
+        }
+    }
+}
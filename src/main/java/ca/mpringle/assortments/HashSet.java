@@ -1,63 +1,229 @@
 package ca.mpringle.assortments;
 
+import ca.mpringle.util.Checks;
 import jakarta.annotation.Nullable;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.validation.constraints.NotNull;
-import java.util.ArrayList;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.function.Supplier;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * An open addressing hash set. Elements are stored directly in a flat array and
+ * collisions are resolved by linear probing, so a lookup touches a contiguous run
+ * of slots instead of chasing bucket lists. The hash of every element is cached
+ * next to it, which lets probing skip {@link Equals#isEqual(Object)} calls on
+ * mismatched hashes and lets resizing move elements without recomputing them.
+ * <p>
+ * Table sizes are powers of two and slots are found by masking the hash, after it has
+ * been spread by {@link Hashing#spread(int)}, so negative and poorly distributed
+ * hashes are handled without integer division.
+ * <p>
+ * Removal uses backward shift deletion rather than tombstones, so the table never
+ * degrades from repeated add and remove cycles.
+ * <p>
+ * When the table grows, shrinks and how far is decided by a {@link ResizePolicy}. By
+ * default the table doubles once 3/4 full and halves once less than 3/16 full. Sets
+ * whose size is known upfront are best created {@link #withExpectedSize(int)}, which
+ * allocates a table that never needs to grow.
+ * <p>
+ * When {@link TreeBin#TREEIFY_THRESHOLD} or more {@link Compares} elements of one class
+ * share a hash, they are moved into a {@link TreeBin} occupying a single slot, bounding
+ * lookups among them to O(log n). Elements that only implement {@link Equals} can be
+ * protected from input crafted to collide in the table by creating the set with
+ * {@link #withRandomSeed()}.
+ * <p>
+ * By default a resize moves every element at once. With incremental resizing, see
+ * {@link ResizePolicy#withIncrementalResize(boolean)}, the
+ * old table is kept alongside the new one and drained a few slots per add or remove that
+ * changes the set, so no single operation pays for the whole rehash. Calls that change
+ * nothing leave the tables alone, so they never disturb an iteration in progress. Lookups check both tables until
+ * the migration completes.
+ * <p>
+ * Most sets stay small, so a set created without a capacity starts compact: no table is
+ * allocated until the first add, and up to {@link #COMPACT_LIMIT} elements are kept in a
+ * flat array searched with {@link Equals#isEqual(Object)}, without computing any hash. The
+ * set moves to a hash table once it outgrows the array and stays hashed from then on.
+ * <p>
+ * {@link #getStats()} reports how well elements are spread over the table, and once
+ * {@link #setStatsEnabled(boolean) enabled} also counts lookups and resizes. The same
+ * figures can be watched over JMX with {@link #registerStatsMBean(String)}.
+ */
 public class HashSet<E extends Equals<?>> extends AbstractAssortment<E> {
 
-    // this value must be > 0
-    private static final int INITIAL_CAPACITY = 3;
+    // this value must be a power of two
+    private static final int INITIAL_CAPACITY = 4;
+    // old slots visited per operation during an incremental resize, for any load factor
+    // above 1/8 the migration completes before the new table fills, see growIfRequired
+    private static final int MIGRATION_STEP = 8;
+    // the most elements a compact set holds before moving to a hash table, a linear scan of
+    // this many elements is no slower than hashing and probing
+    static final int COMPACT_LIMIT = 8;
+    private static final Object[] NO_ELEMENTS = new Object[0];
+    private static final int[] NO_HASHES = new int[0];
 
     @NotNull
-    private List<List<E>> list;
+    private final ResizePolicy resizePolicy;
+    // mixed into every hash before it is spread, 0 unless created withRandomSeed
+    private final int seed;
+    // the table never shrinks below the capacity it was created with
+    private final int minimumCapacity;
+
+    // a null slot is empty, the table always contains at least one empty slot,
+    // a slot holds either an element or a TreeBin, the cached hashes have been spread;
+    // in a compact set elements are packed at the front and there are no hashes
+    @NotNull
+    private Object[] elements;
+    @NotNull
+    private int[] hashes;
+    private boolean compact;
+    // the table being drained by an incremental resize, null when no resize is in progress
+    @Nullable
+    private Object[] pendingElements;
+    @Nullable
+    private int[] pendingHashes;
+    // the next pending slot to migrate and how many pending slots are left to visit
+    private int migrationSlot;
+    private int migrationRemaining;
+    // the number of elements across both tables
     private int size;
+    // incremented on every structural change so iterators can fail fast
+    private int modifications;
+    // null unless stats are enabled, so sets not recording them pay for a single null check
+    @Nullable
+    private Counters counters;
 
+    /**
+     * Creates a compact set, which allocates nothing until the first add.
+     */
     public HashSet() {
-        this(INITIAL_CAPACITY);
+        this(INITIAL_CAPACITY, ResizePolicy.defaults(), 0, true);
     }
 
+    /**
+     * @param initialCapacity rounded up to the next power of two
+     */
     public HashSet(final int initialCapacity) {
-        list = createEmptyListOfSize(initialCapacity);
+        this(initialCapacity, ResizePolicy.defaults());
+    }
+
+    /**
+     * @param initialCapacity   rounded up to the next power of two
+     * @param incrementalResize when true, resizing is spread over subsequent add and
+     *                          remove calls instead of happening all at once
+     */
+    public HashSet(final int initialCapacity, final boolean incrementalResize) {
+        this(initialCapacity, ResizePolicy.defaults().withIncrementalResize(incrementalResize));
+    }
+
+    /**
+     * Creates a compact set, which allocates nothing until the first add.
+     */
+    public HashSet(@NotNull final ResizePolicy resizePolicy) {
+        this(INITIAL_CAPACITY, resizePolicy, 0, true);
+    }
+
+    /**
+     * @param initialCapacity rounded up to the next power of two, the table never shrinks below it
+     */
+    public HashSet(final int initialCapacity, @NotNull final ResizePolicy resizePolicy) {
+        this(initialCapacity, resizePolicy, 0, false);
+    }
+
+    private HashSet(final int initialCapacity,
+                    @NotNull final ResizePolicy resizePolicy,
+                    final int seed,
+                    final boolean compact) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThan(0, "initial capacity must be > 0");
+
+        final int capacity = Checks.notNull(resizePolicy).initialCapacity(initialCapacity);
+        this.resizePolicy = resizePolicy;
+        this.seed = seed;
+        this.minimumCapacity = capacity;
+        // a policy capping the table at the compact limit leaves no room to move to, see inflate
+        this.compact = compact && resizePolicy.capacityFor(COMPACT_LIMIT) > COMPACT_LIMIT;
+        elements = this.compact ? NO_ELEMENTS : new Object[capacity];
+        hashes = this.compact ? NO_HASHES : new int[capacity];
+        pendingElements = null;
+        pendingHashes = null;
         size = 0;
     }
 
-    public void add(@Nullable final E element) {
+    /**
+     * Creates a set that mixes a random seed into every hash, so the slots elements land in
+     * cannot be predicted from their hashes. This protects against input crafted to collide
+     * in the table, but elements with identical hashes still collide; only {@link Compares}
+     * elements are protected against those, see {@link TreeBin}.
+     */
+    @NotNull
+    public static <E extends Equals<?>> HashSet<E> withRandomSeed() {
 
-        if (contains(element)) {
-            return;
-        }
+        return new HashSet<>(INITIAL_CAPACITY, ResizePolicy.defaults(), ThreadLocalRandom.current().nextInt(), true);
+    }
 
-        final int index = element.hashCode() % list.size();
-        list.get(index).add(element);
-        size++;
-        resizeIfRequired();
+    /**
+     * Creates a set whose table holds the expected number of elements without growing.
+     */
+    @NotNull
+    public static <E extends Equals<?>> HashSet<E> withExpectedSize(final int expectedSize) {
+
+        return withExpectedSize(expectedSize, ResizePolicy.defaults());
     }
 
-    public void addAll(@NotNull final HashSet<E> hashSet) {
+    /**
+     * Creates a set whose table holds the expected number of elements without growing
+     * under the given policy. A set expected to hold at most {@link #COMPACT_LIMIT}
+     * elements starts compact.
+     */
+    @NotNull
+    public static <E extends Equals<?>> HashSet<E> withExpectedSize(final int expectedSize,
+                                                                  @NotNull final ResizePolicy resizePolicy) {
 
-        for (final List<E> sublist : hashSet.list) {
-            for (final E element : sublist) {
-                add(element);
-            }
+        Checks.notNullAnd(expectedSize).isGreaterThanOrEqualTo(0, "expected size must be >= 0");
+
+        return new HashSet<>(
+                Checks.notNull(resizePolicy).capacityFor(expectedSize),
+                resizePolicy,
+                0,
+                expectedSize <= COMPACT_LIMIT
+        );
+    }
+
+    public void add(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        if (compact) {
+            addCompact(element);
+        } else {
+            addHashed(element, hash(element));
         }
     }
 
-    @Override
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    public boolean contains(@Nullable final E element) {
+    public void addAll(@NotNull final HashSet<E> hashSet) {
 
-        if (element == null) {
-            return false;
+        if (hashSet.compact) {
+            for (int i = 0; i < hashSet.size; i++) {
+                add(cast(hashSet.elements[i]));
+            }
+            return;
         }
 
-        final int index = element.hashCode() % list.size();
-        return list.get(index).stream().anyMatch(e -> ((Equals) e).isEqual(element));
+        // cached hashes can only be reused when both sets spread hashes the same way
+        final boolean reuseHashes = hashSet.seed == seed;
+        if (hashSet.pendingElements != null) {
+            addAllHashed(hashSet.pendingElements, hashSet.pendingHashes, reuseHashes);
+        }
+        addAllHashed(hashSet.elements, hashSet.hashes, reuseHashes);
     }
 
     @SafeVarargs
@@ -68,105 +234,896 @@ public class HashSet<E extends Equals<?>> extends AbstractAssortment<E> {
         }
     }
 
+    /**
+     * Removes the element, returning true if it was present.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+        if (compact) {
+            return removeCompact(element);
+        }
+
+        final int hash = hash(element);
+        final boolean removed = removeFrom(elements, hashes, element, hash)
+                || pendingElements != null && removeFrom(pendingElements, pendingHashes, element, hash);
+        if (removed) {
+            shrinkIfRequired();
+            migrate(MIGRATION_STEP);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every element matching the filter in a single pass over the table,
+     * returning true if any were removed.
+     */
+    public boolean removeIf(@NotNull final Predicate<? super E> filter) {
+
+        Checks.notNull(filter);
+
+        if (compact) {
+            return removeMatchingCompact(filter) > 0;
+        }
+
+        int removed = removeMatching(elements, hashes, filter);
+        if (pendingElements != null) {
+            removed += removeMatching(pendingElements, pendingHashes, filter);
+        }
+
+        if (removed == 0) {
+            return false;
+        }
+
+        shrinkIfRequired();
+        return true;
+    }
+
+    /**
+     * Removes every element not contained in the given assortment, returning true if
+     * any were removed.
+     */
+    public boolean retainAll(@NotNull final AbstractAssortment<E> assortment) {
+
+        Checks.notNull(assortment);
+
+        return removeIf(element -> !assortment.contains(element));
+    }
+
+    /**
+     * Returns an immutable copy of the set placed by a minimal perfect hash, where every
+     * lookup is one hash, one slot and one {@link Equals#isEqual(Object)} call. Later
+     * changes to this set do not affect the copy. The random seed of a set created
+     * {@link #withRandomSeed()} is not carried over.
+     */
+    @NotNull
+    public FrozenHashSet<E> freeze() {
+
+        final Object[] snapshot = new Object[size];
+        final int[] count = new int[1];
+        forEach(element -> snapshot[count[0]++] = element);
+
+        return FrozenHashSet.of(snapshot, count[0]);
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        final boolean found = compact ? indexOfCompact(element) >= 0 : containsHashed(element, hash(element));
+        if (counters != null) {
+            counters.recordContains(found);
+        }
+
+        return found;
+    }
+
     @Override
     public int size() {
 
         return size;
     }
 
+    /**
+     * The number of slots in the table, or of the array holding a compact set's elements.
+     */
+    int capacity() {
+
+        return elements.length;
+    }
+
+    boolean isCompact() {
+
+        return compact;
+    }
+
+    /**
+     * Starts or stops counting {@code contains} hits and misses and resizes. Stopping discards
+     * the counts recorded so far.
+     */
+    public void setStatsEnabled(final boolean statsEnabled) {
+
+        if (!statsEnabled) {
+            counters = null;
+        } else if (counters == null) {
+            counters = new Counters();
+        }
+    }
+
+    public boolean isStatsEnabled() {
+
+        return counters != null;
+    }
+
+    /**
+     * Takes a snapshot of the table layout and of the counters, if enabled. This scans the
+     * whole table, so it is meant for diagnostics rather than for use on every operation.
+     * Like the rest of the set it is not thread safe, called while another thread changes
+     * the set it may return inconsistent figures or fail.
+     */
+    @NotNull
+    public HashSetStats getStats() {
+
+        final Counters current = counters;
+        if (compact) {
+            final int[] elementHashes = new int[size];
+            for (int i = 0; i < size; i++) {
+                elementHashes[i] = hash(elements[i]);
+            }
+            return HashSetStats.ofCompact(
+                    elements,
+                    elementHashes,
+                    current == null ? 0L : current.resizes,
+                    current == null ? 0L : current.resizeNanos,
+                    current == null ? 0L : current.containsHits,
+                    current == null ? 0L : current.containsMisses
+            );
+        }
+
+        return HashSetStats.of(
+                elements,
+                hashes,
+                pendingElements,
+                pendingHashes,
+                size,
+                current == null ? 0L : current.resizes,
+                current == null ? 0L : current.resizeNanos,
+                current == null ? 0L : current.containsHits,
+                current == null ? 0L : current.containsMisses
+        );
+    }
+
+    /**
+     * Registers a {@link HashSetStatsMXBean} for this set with the platform MBean server,
+     * under {@code ca.mpringle.assortments:type=HashSet,name=<name>}, and returns its name.
+     * Stats are enabled if they were not already.
+     * <p>
+     * The server keeps a reference to the set until the bean is unregistered with
+     * {@code ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName)}. The
+     * bean reads the stats on a JMX thread while holding the monitor of this set, so its
+     * values are consistent if the owner changes the set only while synchronized on it, and
+     * best effort otherwise.
+     */
+    @NotNull
+    public ObjectName registerStatsMBean(@NotNull final String name) {
+
+        Checks.notNull(name);
+
+        setStatsEnabled(true);
+        try {
+            final ObjectName objectName = new ObjectName("ca.mpringle.assortments:type=HashSet,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new HashSetStatsBean(this), objectName);
+            return objectName;
+        } catch (final JMException e) {
+            throw new IllegalStateException("Unable to register the stats MBean for " + name + ".", e);
+        }
+    }
+
+    /**
+     * The iterator keeps a cursor into the table, so each step only scans forward to
+     * the next occupied slot and a full traversal is linear in the capacity.
+     */
     @Override
     @NotNull
     public Iterator<E> iterator() {
 
         return new Iterator<>() {
 
-            int index = 0;
+            final TableSpliterator cursor = new TableSpliterator();
+            @Nullable
+            Object next = cursor.nextElement();
 
             @Override
             public boolean hasNext() {
-                return index < size();
+                return next != null;
             }
 
             @Override
-            @Nullable
+            @NotNull
             public E next() {
-                int sum = 0;
-                for (final List<E> sublist : list) {
-                    sum += sublist.size();
-                    if (index < sum) {
-                        final E element = sublist.get(sublist.size() - sum + index);
-                        index++;
-                        return element;
-                    }
+
+                cursor.checkForComodification();
+                if (next == null) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
                 }
 
-                throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                final E element = cast(next);
+                next = cursor.nextElement();
+                return element;
             }
         };
     }
 
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        new TableSpliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Splits on slot ranges of the table. Only the unsplit spliterator knows its exact
+     * size, the halves report an estimate as elements may be unevenly spread.
+     */
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return new TableSpliterator();
+    }
+
     @Override
     @NotNull
     public String toString() {
 
+        final String table = tableToString(elements);
+        if (pendingElements == null) {
+            return table;
+        }
+
+        return table + System.lineSeparator() + "resizing from" + System.lineSeparator() + tableToString(pendingElements);
+    }
+
+    private boolean containsHashed(@NotNull final Object element, final int hash) {
+
+        return findSlot(elements, hashes, element, hash) >= 0
+                || pendingElements != null && findSlot(pendingElements, pendingHashes, element, hash) >= 0;
+    }
+
+    private int hash(@NotNull final Object element) {
+
+        return Hashing.spread(((Equals<?>) element).computeHash() ^ seed);
+    }
+
+    private void addHashed(@NotNull final Object element, final int hash) {
+
+        if (compact) {
+            addCompact(element);
+            return;
+        }
+
+        if (!containsHashed(element, hash)) {
+            growIfRequired();
+            insert(element, hash);
+            migrate(MIGRATION_STEP);
+        }
+    }
+
+    private void addAllHashed(@NotNull final Object[] otherElements,
+                              @NotNull final int[] otherHashes,
+                              final boolean reuseHashes) {
+
+        for (int slot = 0; slot < otherElements.length; slot++) {
+            final Object stored = otherElements[slot];
+            if (stored instanceof TreeBin) {
+                for (final Object element : (TreeBin) stored) {
+                    addHashed(element, reuseHashes ? otherHashes[slot] : hash(element));
+                }
+            } else if (stored != null) {
+                addHashed(stored, reuseHashes ? otherHashes[slot] : hash(stored));
+            }
+        }
+    }
+
+    private int indexOfCompact(@NotNull final Object element) {
+
+        for (int i = 0; i < size; i++) {
+            if (isEqual(elements[i], element)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void addCompact(@NotNull final Object element) {
+
+        if (indexOfCompact(element) >= 0) {
+            return;
+        }
+
+        if (size == COMPACT_LIMIT) {
+            inflate();
+            addHashed(element, hash(element));
+            return;
+        }
+
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(2, size * 2));
+        }
+        elements[size++] = element;
+        modifications++;
+    }
+
+    /**
+     * Moves a compact set into a hash table with room for one more element, which counts as
+     * a resize. The constructor only allows a set to be compact if such a table has a free
+     * slot left.
+     */
+    private void inflate() {
+
+        final long start = counters == null ? 0L : System.nanoTime();
+        final Object[] compactElements = elements;
+        final int capacity = Math.max(minimumCapacity, resizePolicy.capacityFor(size + 1));
+
+        elements = new Object[capacity];
+        hashes = new int[capacity];
+        compact = false;
+        for (int i = 0; i < size; i++) {
+            place(elements, hashes, compactElements[i], hash(compactElements[i]));
+        }
+        if (counters != null) {
+            counters.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Removes the element by moving the last element into its place.
+     */
+    private boolean removeCompact(@NotNull final Object element) {
+
+        final int index = indexOfCompact(element);
+        if (index < 0) {
+            return false;
+        }
+
+        size--;
+        elements[index] = elements[size];
+        elements[size] = null;
+        modifications++;
+        return true;
+    }
+
+    /**
+     * Removes matching elements of a compact set, walking backwards so the last element
+     * moved into a hole has already been tested.
+     */
+    private int removeMatchingCompact(@NotNull final Predicate<? super E> filter) {
+
+        int removed = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (filter.test(cast(elements[i]))) {
+                size--;
+                elements[i] = elements[size];
+                elements[size] = null;
+                modifications++;
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    private void insert(@NotNull final Object element, final int hash) {
+
+        if (!TreeBin.isTreeifiable(element) || !insertIntoBin(element, hash)) {
+            place(elements, hashes, element, hash);
+        }
+        size++;
+        modifications++;
+    }
+
+    /**
+     * Adds the element to the bin for its hash, creating the bin once enough elements share
+     * the hash. Returns false if the element belongs in a slot of its own instead.
+     */
+    private boolean insertIntoBin(@NotNull final Object element, final int hash) {
+
+        final int capacity = elements.length;
+        int sharingHash = 0;
+        for (int slot = homeSlot(hash, capacity); elements[slot] != null; slot = nextSlot(slot, capacity)) {
+            if (hashes[slot] == hash) {
+                final Object candidate = elements[slot];
+                if (candidate instanceof TreeBin && ((TreeBin) candidate).accepts(element)) {
+                    return ((TreeBin) candidate).add(element);
+                }
+                if (candidate.getClass() == element.getClass()) {
+                    sharingHash++;
+                }
+            }
+        }
+
+        if (sharingHash + 1 < TreeBin.TREEIFY_THRESHOLD) {
+            return false;
+        }
+
+        // a deletion shifts the next element of the cluster into the slot, so check it again
+        final TreeBin bin = new TreeBin(element);
+        int slot = homeSlot(hash, capacity);
+        while (elements[slot] != null) {
+            if (hashes[slot] == hash && bin.accepts(elements[slot])) {
+                bin.add(elements[slot]);
+                deleteSlot(elements, hashes, slot);
+            } else {
+                slot = nextSlot(slot, capacity);
+            }
+        }
+
+        place(elements, hashes, bin, hash);
+        return true;
+    }
+
+    private boolean removeFrom(@NotNull final Object[] table,
+                               @NotNull final int[] tableHashes,
+                               @NotNull final Object element,
+                               final int hash) {
+
+        final int slot = findSlot(table, tableHashes, element, hash);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (table[slot] instanceof TreeBin) {
+            final TreeBin bin = (TreeBin) table[slot];
+            bin.remove(element);
+            if (bin.size() == 1) {
+                table[slot] = bin.first();
+            }
+        } else {
+            deleteSlot(table, tableHashes, slot);
+        }
+        size--;
+        modifications++;
+        return true;
+    }
+
+    /**
+     * Deletes matching elements from the table and returns how many were deleted. The scan
+     * starts on an empty slot, so elements shifted back by a deletion always land on a slot
+     * the scan has yet to visit and each element is tested exactly once.
+     */
+    private int removeMatching(@NotNull final Object[] table,
+                               @NotNull final int[] tableHashes,
+                               @NotNull final Predicate<? super E> filter) {
+
+        int slot = 0;
+        while (table[slot] != null) {
+            slot++;
+        }
+
+        int removed = 0;
+        int visited = 0;
+        while (visited < table.length) {
+            final Object element = table[slot];
+            if (element instanceof TreeBin) {
+                final TreeBin bin = (TreeBin) element;
+                final int removedFromBin = bin.removeIf(e -> filter.test(cast(e)));
+                size -= removedFromBin;
+                modifications += removedFromBin;
+                removed += removedFromBin;
+                if (bin.size() == 0) {
+                    deleteSlot(table, tableHashes, slot);
+                    continue;
+                }
+                if (bin.size() == 1) {
+                    table[slot] = bin.first();
+                }
+                slot = nextSlot(slot, table.length);
+                visited++;
+            } else if (element != null && filter.test(cast(element))) {
+                // the slot now holds the next element of the cluster, if any, so test it again
+                deleteSlot(table, tableHashes, slot);
+                size--;
+                modifications++;
+                removed++;
+            } else {
+                slot = nextSlot(slot, table.length);
+                visited++;
+            }
+        }
+
+        return removed;
+    }
+
+    private void growIfRequired() {
+
+        if (!resizePolicy.shouldGrow(size + 1, elements.length)) {
+            return;
+        }
+
+        final int newCapacity = resizePolicy.grownCapacity(elements.length);
+        // the step size makes this unreachable for sane load factors, but a table must never fill up
+        migrate(Integer.MAX_VALUE);
+        resize(newCapacity);
+    }
+
+    private void shrinkIfRequired() {
+
+        // a resize in progress is left to finish, the check is repeated on the next removal
+        if (pendingElements != null || !resizePolicy.shouldShrink(size, elements.length)) {
+            return;
+        }
+
+        final int newCapacity = resizePolicy.shrunkCapacity(size, elements.length, minimumCapacity);
+        if (newCapacity != elements.length) {
+            resize(newCapacity);
+        }
+    }
+
+    private void resize(final int newCapacity) {
+
+        final long start = counters == null ? 0L : System.nanoTime();
+        if (resizePolicy.isIncrementalResize()) {
+            startMigration(newCapacity);
+        } else {
+            rehash(newCapacity);
+        }
+        if (counters != null) {
+            counters.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Moves every element into a table of the new capacity using the cached hashes,
+     * without recomputing hashes or checking for duplicates.
+     */
+    private void rehash(final int newCapacity) {
+
+        final Object[] oldElements = elements;
+        final int[] oldHashes = hashes;
+
+        elements = new Object[newCapacity];
+        hashes = new int[newCapacity];
+
+        for (int slot = 0; slot < oldElements.length; slot++) {
+            if (oldElements[slot] != null) {
+                place(elements, hashes, oldElements[slot], oldHashes[slot]);
+            }
+        }
+    }
+
+    private void startMigration(final int newCapacity) {
+
+        pendingElements = elements;
+        pendingHashes = hashes;
+        elements = new Object[newCapacity];
+        hashes = new int[newCapacity];
+
+        // start on an empty slot so that no cluster is split across the start and end of the migration
+        migrationSlot = 0;
+        while (pendingElements[migrationSlot] != null) {
+            migrationSlot++;
+        }
+        migrationRemaining = pendingElements.length;
+    }
+
+    /**
+     * Moves at least the given number of pending slots into the current table, continuing
+     * to the end of the current cluster. Pending elements are only reachable by probing
+     * through their own cluster, so migrating whole clusters keeps the rest reachable.
+     */
+    private void migrate(final int slots) {
+
+        final Object[] pending = pendingElements;
+        if (pending == null) {
+            return;
+        }
+
+        final long start = counters == null ? 0L : System.nanoTime();
+        int visited = 0;
+        while (migrationRemaining > 0 && (visited < slots || pending[migrationSlot] != null)) {
+            if (pending[migrationSlot] != null) {
+                place(elements, hashes, pending[migrationSlot], pendingHashes[migrationSlot]);
+                pending[migrationSlot] = null;
+            }
+            migrationSlot = nextSlot(migrationSlot, pending.length);
+            migrationRemaining--;
+            visited++;
+        }
+
+        if (migrationRemaining == 0) {
+            pendingElements = null;
+            pendingHashes = null;
+        }
+        if (counters != null) {
+            // a migration is counted once, when it starts, its steps add to the time spent resizing
+            counters.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    @NotNull
+    private static String tableToString(@NotNull final Object[] table) {
+
         final StringBuilder indexes = new StringBuilder();
         final StringBuilder arrows = new StringBuilder();
-        final StringBuilder elements = new StringBuilder();
+        final StringBuilder slots = new StringBuilder();
 
-        for (int i = 0; i < list.size(); i++) {
+        for (int i = 0; i < table.length; i++) {
             indexes.append(i).append(" ");
             arrows.append("↓ ");
-            elements.append("{");
-            int indexLengthSoFar = indexes.length();
-            int arrowsLengthSoFar = arrows.length();
-            for (final E element : list.get(i)) {
-                elements.append(element == null ? " " : element.toString()).append(",");
-            }
-            if (!list.get(i).isEmpty()) {
-                elements.deleteCharAt(elements.length() - 1);
-            }
-            elements.append("} ");
-            indexes.append(" ".repeat(Math.max(0, elements.length() - indexLengthSoFar)));
-            arrows.append(" ".repeat(Math.max(0, elements.length() - arrowsLengthSoFar)));
+            final int indexLengthSoFar = indexes.length();
+            final int arrowsLengthSoFar = arrows.length();
+            slots
+                    .append("{")
+                    .append(table[i] == null ? "" : table[i].toString())
+                    .append("} ");
+            indexes.append(" ".repeat(Math.max(0, slots.length() - indexLengthSoFar)));
+            arrows.append(" ".repeat(Math.max(0, slots.length() - arrowsLengthSoFar)));
         }
 
         indexes.append(System.lineSeparator());
         arrows.append(System.lineSeparator());
 
-        return indexes.toString() + arrows + elements;
+        return indexes.toString() + arrows + slots;
     }
 
-    private void resizeIfRequired() {
+    /**
+     * Returns the slot holding an element equal to the given one, or the bin containing it,
+     * or -1 if there is none.
+     */
+    private static int findSlot(@NotNull final Object[] table,
+                                @NotNull final int[] tableHashes,
+                                @NotNull final Object element,
+                                final int hash) {
 
-        final long emptyBuckets = list
-                .stream()
-                .filter(List::isEmpty)
-                .count();
+        int slot = homeSlot(hash, table.length);
+        Object candidate;
+        while ((candidate = table[slot]) != null) {
+            if (tableHashes[slot] == hash && (candidate instanceof TreeBin
+                    ? ((TreeBin) candidate).contains(element)
+                    : isEqual(candidate, element))) {
+                return slot;
+            }
+            slot = nextSlot(slot, table.length);
+        }
 
-        // handle sparse results from crappy hashes by not resizing
-        final double percentageOfEmptyBuckets = emptyBuckets * 1.0D / list.size();
-        if (percentageOfEmptyBuckets > 0.83) {
-            return;
+        return -1;
+    }
+
+    /**
+     * Places an element or bin known not to be present into the first free slot of its probe sequence.
+     */
+    private static void place(@NotNull final Object[] table,
+                              @NotNull final int[] tableHashes,
+                              @NotNull final Object element,
+                              final int hash) {
+
+        int slot = homeSlot(hash, table.length);
+        while (table[slot] != null) {
+            slot = nextSlot(slot, table.length);
         }
 
-        // allow easy substitution of sizing algorithms
-        final Supplier<Boolean> sizingAlgorithm = () -> size > list.size() * 3;
+        table[slot] = element;
+        tableHashes[slot] = hash;
+    }
+
+    /**
+     * Empties a slot and shifts later members of the same cluster back into the hole, so
+     * every remaining element stays reachable from its home slot without tombstones, see
+     * {@link LinearProbing}. A hash here may be 0, so empty slots are the null ones.
+     */
+    private static void deleteSlot(@NotNull final Object[] table, @NotNull final int[] tableHashes, final int slot) {
 
-        if (sizingAlgorithm.get()) {
-            final HashSet<E> hashSet = new HashSet<>(list.size() * 2);
-            hashSet.addAll(this);
-            list = hashSet.list;
+        final int capacity = table.length;
+        int hole = slot;
+        int candidate = nextSlot(hole, capacity);
+        while (table[candidate] != null) {
+            final int home = homeSlot(tableHashes[candidate], capacity);
+            if (LinearProbing.mayShift(home, candidate, hole, capacity - 1)) {
+                table[hole] = table[candidate];
+                tableHashes[hole] = tableHashes[candidate];
+                hole = candidate;
+            }
+            candidate = nextSlot(candidate, capacity);
         }
+
+        table[hole] = null;
+        tableHashes[hole] = 0;
     }
 
-    @NotNull
-    private List<List<E>> createEmptyListOfSize(final int size) {
+    private static int homeSlot(final int hash, final int capacity) {
 
-        final List<List<E>> newList = new ArrayList<>(size);
-        for (int i = 0; i < size; i++) {
-            newList.add(new ArrayList<>());
+        return hash & (capacity - 1);
+    }
+
+    private static int nextSlot(final int slot, final int capacity) {
+
+        return (slot + 1) & (capacity - 1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@NotNull final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Walks the pending table, if any, followed by the current table. Slots are numbered
+     * across both, so a range may span the two tables.
+     */
+    private final class TableSpliterator implements Spliterator<E> {
+
+        @NotNull
+        private final Object[] first;
+        @NotNull
+        private final Object[] second;
+        private final int expectedModifications;
+        private int slot;
+        private final int fence;
+        private int estimate;
+        private boolean exact;
+        // the remaining elements of the bin in the last slot visited
+        @Nullable
+        private Iterator<Object> binCursor;
+
+        private TableSpliterator() {
+            this.first = pendingElements == null ? NO_ELEMENTS : pendingElements;
+            this.second = elements;
+            this.expectedModifications = modifications;
+            this.slot = 0;
+            this.fence = first.length + second.length;
+            this.estimate = size;
+            this.exact = true;
+        }
+
+        private TableSpliterator(@NotNull final TableSpliterator parent, final int fence) {
+            this.first = parent.first;
+            this.second = parent.second;
+            this.expectedModifications = parent.expectedModifications;
+            this.slot = parent.slot;
+            this.fence = fence;
+            this.estimate = parent.estimate;
+            this.exact = false;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull final Consumer<? super E> action) {
+
+            checkForComodification();
+            final Object element = nextElement();
+            if (element == null) {
+                return false;
+            }
+
+            action.accept(cast(element));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull final Consumer<? super E> action) {
+
+            while (binCursor != null && binCursor.hasNext()) {
+                action.accept(cast(binCursor.next()));
+            }
+            binCursor = null;
+
+            final int boundary = Math.min(fence, first.length);
+            for (; slot < boundary; slot++) {
+                accept(first[slot], action);
+            }
+            for (; slot < fence; slot++) {
+                accept(second[slot - first.length], action);
+            }
+            checkForComodification();
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<E> trySplit() {
+
+            final int middle = (slot + fence) >>> 1;
+            if (middle <= slot) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            exact = false;
+            final TableSpliterator prefix = new TableSpliterator(this, middle);
+            slot = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+
+            return (exact ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+
+        /**
+         * Returns the element in the next occupied slot, or null when the range is exhausted.
+         */
+        @Nullable
+        private Object nextElement() {
+
+            if (binCursor != null) {
+                if (binCursor.hasNext()) {
+                    return binCursor.next();
+                }
+                binCursor = null;
+            }
+
+            while (slot < fence) {
+                final int virtualSlot = slot++;
+                final Object element = virtualSlot < first.length ? first[virtualSlot] : second[virtualSlot - first.length];
+                if (element instanceof TreeBin) {
+                    // bins are never empty
+                    binCursor = ((TreeBin) element).iterator();
+                    return binCursor.next();
+                }
+                if (element != null) {
+                    return element;
+                }
+            }
+
+            return null;
         }
 
-        return newList;
+        private void accept(@Nullable final Object stored, @NotNull final Consumer<? super E> action) {
+
+            if (stored instanceof TreeBin) {
+                for (final Object element : (TreeBin) stored) {
+                    action.accept(cast(element));
+                }
+            } else if (stored != null) {
+                action.accept(cast(stored));
+            }
+        }
+
+        private void checkForComodification() {
+
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The set was modified during iteration.");
+            }
+        }
+    }
+
+    private static final class Counters {
+
+        private long containsHits;
+        private long containsMisses;
+        private long resizes;
+        private long resizeNanos;
+
+        private void recordContains(final boolean found) {
+
+            if (found) {
+                containsHits++;
+            } else {
+                containsMisses++;
+            }
+        }
+
+        private void recordResize(final long nanos) {
+
+            resizes++;
+            resizeNanos += nanos;
+        }
     }
-}
\ No newline at end of file
+}
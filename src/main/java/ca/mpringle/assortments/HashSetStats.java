@@ -0,0 +1,286 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of how a {@link HashSet} is behaving, see {@link HashSet#getStats()}.
+ * <p>
+ * The table layout figures are computed when the snapshot is taken and are always available.
+ * In an open addressing table the equivalent of a bucket's occupancy is how far each element
+ * had to be placed from its home slot, reported as the number of slots probed to find it. A
+ * long tail in the probe length histogram, or many colliding elements, points to a poor
+ * {@link Equals#computeHash()} implementation. A compact set has no table, its elements
+ * are found by a linear scan and the n-th element takes n probes.
+ * <p>
+ * The operation counters, {@code contains} hits and misses and resizes, are only recorded
+ * while {@link HashSet#setStatsEnabled(boolean) stats are enabled}, and are 0 otherwise.
+ */
+public final class HashSetStats {
+
+    private final int size;
+    private final int capacity;
+    @NotNull
+    private final long[] probeLengthHistogram;
+    private final int maxProbeLength;
+    private final double averageProbeLength;
+    private final int treeBinCount;
+    private final int collidingElements;
+    private final long resizeCount;
+    private final long resizeNanos;
+    private final long containsHits;
+    private final long containsMisses;
+
+    private HashSetStats(final int size,
+                         final int capacity,
+                         @NotNull final long[] probeLengthHistogram,
+                         final double averageProbeLength,
+                         final int treeBinCount,
+                         final int collidingElements,
+                         final long resizeCount,
+                         final long resizeNanos,
+                         final long containsHits,
+                         final long containsMisses) {
+
+        this.size = size;
+        this.capacity = capacity;
+        this.probeLengthHistogram = probeLengthHistogram;
+        this.maxProbeLength = probeLengthHistogram.length;
+        this.averageProbeLength = averageProbeLength;
+        this.treeBinCount = treeBinCount;
+        this.collidingElements = collidingElements;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+        this.containsHits = containsHits;
+        this.containsMisses = containsMisses;
+    }
+
+    /**
+     * Scans the tables of a set. The pending table is the one being drained by an incremental
+     * resize, if any, and each hash is the spread hash cached for the slot.
+     */
+    @NotNull
+    static HashSetStats of(@NotNull final Object[] elements,
+                           @NotNull final int[] hashes,
+                           @Nullable final Object[] pendingElements,
+                           @Nullable final int[] pendingHashes,
+                           final int size,
+                           final long resizeCount,
+                           final long resizeNanos,
+                           final long containsHits,
+                           final long containsMisses) {
+
+        final Scan scan = new Scan(size);
+        scan.add(elements, hashes);
+        if (pendingElements != null && pendingHashes != null) {
+            scan.add(pendingElements, pendingHashes);
+        }
+
+        return scan.toStats(elements.length, resizeCount, resizeNanos, containsHits, containsMisses);
+    }
+
+    /**
+     * Scans the elements of a compact set, packed at the front of the array, given their
+     * spread hashes.
+     */
+    @NotNull
+    static HashSetStats ofCompact(@NotNull final Object[] elements,
+                                  @NotNull final int[] hashes,
+                                  final long resizeCount,
+                                  final long resizeNanos,
+                                  final long containsHits,
+                                  final long containsMisses) {
+
+        final Scan scan = new Scan(hashes.length);
+        for (int i = 0; i < hashes.length; i++) {
+            scan.record(i + 1, 1, hashes[i]);
+        }
+
+        return scan.toStats(elements.length, resizeCount, resizeNanos, containsHits, containsMisses);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The number of slots in the table, excluding a table being drained by an incremental resize.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getLoadFactor() {
+        return capacity == 0 ? 0D : size * 1D / capacity;
+    }
+
+    /**
+     * Index i holds the number of elements found after probing i + 1 slots, so index 0 counts
+     * the elements sitting in their home slot. Elements in a {@link TreeBin} count the probes
+     * to reach their bin.
+     */
+    @NotNull
+    public long[] getProbeLengthHistogram() {
+        return probeLengthHistogram.clone();
+    }
+
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    public double getAverageProbeLength() {
+        return averageProbeLength;
+    }
+
+    /**
+     * The number of runs of {@link Compares} elements sharing a hash that were moved into a tree.
+     */
+    public int getTreeBinCount() {
+        return treeBinCount;
+    }
+
+    /**
+     * The number of elements whose {@link Equals#computeHash()} is shared with at least one
+     * other element. Hashes are compared after spreading, which does not create or remove
+     * collisions, so this is exact rather than an estimate.
+     */
+    public int getCollidingElements() {
+        return collidingElements;
+    }
+
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    public long getContainsHits() {
+        return containsHits;
+    }
+
+    public long getContainsMisses() {
+        return containsMisses;
+    }
+
+    /**
+     * The fraction of {@code contains} calls that found the element, or 0 if none were recorded.
+     */
+    public double getContainsHitRatio() {
+
+        final long calls = containsHits + containsMisses;
+        return calls == 0 ? 0D : containsHits * 1D / calls;
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return String.format(
+                "HashSetStats(size=%s, capacity=%s, maxProbeLength=%s, averageProbeLength=%.3f, " +
+                        "probeLengthHistogram=%s, treeBinCount=%s, collidingElements=%s, resizeCount=%s, " +
+                        "resizeNanos=%s, containsHits=%s, containsMisses=%s)",
+                size, capacity, maxProbeLength, averageProbeLength, Arrays.toString(probeLengthHistogram),
+                treeBinCount, collidingElements, resizeCount, resizeNanos, containsHits, containsMisses
+        );
+    }
+
+    private static final class Scan {
+
+        @NotNull
+        private long[] histogram;
+        private int maxProbeLength;
+        private long totalProbeLength;
+        private int elementCount;
+        private int treeBinCount;
+        // the hash of every element, repeated for elements in a bin
+        @NotNull
+        private int[] elementHashes;
+
+        private Scan(final int expectedSize) {
+            this.histogram = new long[8];
+            this.elementHashes = new int[expectedSize];
+        }
+
+        private void add(@NotNull final Object[] table, @NotNull final int[] tableHashes) {
+
+            for (int slot = 0; slot < table.length; slot++) {
+                final Object stored = table[slot];
+                if (stored == null) {
+                    continue;
+                }
+
+                final int hash = tableHashes[slot];
+                final int probeLength = ((slot - (hash & (table.length - 1))) & (table.length - 1)) + 1;
+                if (stored instanceof TreeBin) {
+                    treeBinCount++;
+                    record(probeLength, ((TreeBin) stored).size(), hash);
+                } else {
+                    record(probeLength, 1, hash);
+                }
+            }
+        }
+
+        /**
+         * Records a number of elements sharing a hash, found after probing the given number of slots.
+         */
+        private void record(final int probeLength, final int count, final int hash) {
+
+            if (probeLength > histogram.length) {
+                histogram = Arrays.copyOf(histogram, Math.max(probeLength, histogram.length * 2));
+            }
+            histogram[probeLength - 1] += count;
+            maxProbeLength = Math.max(maxProbeLength, probeLength);
+            totalProbeLength += (long) probeLength * count;
+
+            if (elementCount + count > elementHashes.length) {
+                elementHashes = Arrays.copyOf(elementHashes, Math.max(elementCount + count, elementHashes.length * 2));
+            }
+            Arrays.fill(elementHashes, elementCount, elementCount + count, hash);
+            elementCount += count;
+        }
+
+        @NotNull
+        private HashSetStats toStats(final int capacity,
+                                     final long resizeCount,
+                                     final long resizeNanos,
+                                     final long containsHits,
+                                     final long containsMisses) {
+
+            return new HashSetStats(
+                    elementCount,
+                    capacity,
+                    Arrays.copyOf(histogram, maxProbeLength),
+                    elementCount == 0 ? 0D : totalProbeLength * 1D / elementCount,
+                    treeBinCount,
+                    collidingElements(),
+                    resizeCount,
+                    resizeNanos,
+                    containsHits,
+                    containsMisses
+            );
+        }
+
+        private int collidingElements() {
+
+            final int[] sorted = Arrays.copyOf(elementHashes, elementCount);
+            Arrays.sort(sorted);
+
+            int colliding = 0;
+            int runStart = 0;
+            for (int i = 1; i <= sorted.length; i++) {
+                if (i == sorted.length || sorted[i] != sorted[runStart]) {
+                    if (i - runStart > 1) {
+                        colliding += i - runStart;
+                    }
+                    runStart = i;
+                }
+            }
+
+            return colliding;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Serves the attributes of a {@link HashSetStatsMXBean} from a snapshot of the set. A
+ * console reads attributes one at a time, so a snapshot is reused for a short while
+ * rather than scanning the table once per attribute.
+ * <p>
+ * Attributes are read on a JMX thread, so a snapshot is taken while synchronized on the set.
+ * It is consistent if the owner changes the set only while synchronized on it too, and best
+ * effort otherwise, see {@link HashSet#registerStatsMBean(String)}.
+ */
+final class HashSetStatsBean implements HashSetStatsMXBean {
+
+    private static final long SNAPSHOT_NANOS = 1_000_000_000L;
+
+    @NotNull
+    private final HashSet<?> hashSet;
+    @Nullable
+    private HashSetStats snapshot;
+    private long snapshotTakenAt;
+
+    HashSetStatsBean(@NotNull final HashSet<?> hashSet) {
+
+        this.hashSet = hashSet;
+    }
+
+    @Override
+    public int getSize() {
+        return stats().getSize();
+    }
+
+    @Override
+    public int getCapacity() {
+        return stats().getCapacity();
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return stats().getLoadFactor();
+    }
+
+    @Override
+    public long[] getProbeLengthHistogram() {
+        return stats().getProbeLengthHistogram();
+    }
+
+    @Override
+    public int getMaxProbeLength() {
+        return stats().getMaxProbeLength();
+    }
+
+    @Override
+    public double getAverageProbeLength() {
+        return stats().getAverageProbeLength();
+    }
+
+    @Override
+    public int getTreeBinCount() {
+        return stats().getTreeBinCount();
+    }
+
+    @Override
+    public int getCollidingElements() {
+        return stats().getCollidingElements();
+    }
+
+    @Override
+    public long getResizeCount() {
+        return stats().getResizeCount();
+    }
+
+    @Override
+    public long getResizeNanos() {
+        return stats().getResizeNanos();
+    }
+
+    @Override
+    public long getContainsHits() {
+        return stats().getContainsHits();
+    }
+
+    @Override
+    public long getContainsMisses() {
+        return stats().getContainsMisses();
+    }
+
+    @Override
+    public double getContainsHitRatio() {
+        return stats().getContainsHitRatio();
+    }
+
+    @NotNull
+    private synchronized HashSetStats stats() {
+
+        final long now = System.nanoTime();
+        if (snapshot == null || now - snapshotTakenAt > SNAPSHOT_NANOS) {
+            synchronized (hashSet) {
+                snapshot = hashSet.getStats();
+            }
+            snapshotTakenAt = now;
+        }
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,34 @@
+package ca.mpringle.assortments;
+
+/**
+ * The management interface of the bean registered by {@link HashSet#registerStatsMBean(String)},
+ * exposing the figures of {@link HashSetStats} as attributes.
+ */
+public interface HashSetStatsMXBean {
+
+    int getSize();
+
+    int getCapacity();
+
+    double getLoadFactor();
+
+    long[] getProbeLengthHistogram();
+
+    int getMaxProbeLength();
+
+    double getAverageProbeLength();
+
+    int getTreeBinCount();
+
+    int getCollidingElements();
+
+    long getResizeCount();
+
+    long getResizeNanos();
+
+    long getContainsHits();
+
+    long getContainsMisses();
+
+    double getContainsHitRatio();
+}
@@ -0,0 +1,43 @@
+package ca.mpringle.assortments;
+
+/**
+ * Hash helpers shared by the hash based assortments. Tables are sized to powers of two
+ * so a slot is found by masking rather than by integer division, which in turn needs
+ * every bit of {@link Equals#computeHash()} mixed into the low bits that the mask keeps.
+ */
+final class Hashing {
+
+    // the largest power of two an array can hold
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Hashing() {
+    }
+
+    /**
+     * The murmur3 32 bit finalizer. It is a bijection, so distinct hashes stay distinct,
+     * and every input bit affects every output bit, so weak hashes like those of small
+     * integers or {@link java.util.Objects#hash(Object...)} spread across the table.
+     */
+    static int spread(final int hash) {
+
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Returns the smallest power of two >= the capacity, limited to {@link #MAXIMUM_CAPACITY}.
+     */
+    static int tableSizeFor(final int capacity) {
+
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -0,0 +1,274 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link LinkedList} whose nodes are slots in three parallel arrays, the links in
+ * {@code int[] next} and {@code int[] previous} and the elements in {@code Object[] elements},
+ * rather than objects. A removed slot goes on a free list, threaded through {@code next},
+ * and the next add takes it back, so once the arrays are large enough adding and removing
+ * allocate nothing and a queue with heavy churn puts no pressure on the young generation.
+ * <p>
+ * Elements are added at the end with {@link #add(Equals)}. The last one is read with
+ * {@link #get()} and removed with {@link #remove()} as in {@link LinkedList}, and the first
+ * is read with {@link #peek()} and removed with {@link #poll()}, all in O(1). Null elements
+ * are accepted. The arrays grow by half when no slot is free and never shrink, not even
+ * through {@link #clear()}, so a list that is emptied and refilled allocates nothing.
+ */
+public final class IndexLinkedList<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    // some virtual machines cannot allocate arrays quite as long as Integer.MAX_VALUE
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+    // the link of a slot with no neighbour, and the head of an empty free list
+    private static final int NONE = -1;
+
+    @NotNull
+    private int[] next;
+    @NotNull
+    private int[] previous;
+    @NotNull
+    private Object[] elements;
+    private int first;
+    private int last;
+    private int free;
+    // slots at and above this have never been used, so they are not on the free list
+    private int used;
+    private int size;
+    // incremented on every change so iterators can fail fast
+    private int modifications;
+
+    public IndexLinkedList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IndexLinkedList(final int initialCapacity) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThanOrEqualTo(1, "initial capacity must be >= 1");
+
+        next = new int[initialCapacity];
+        previous = new int[initialCapacity];
+        elements = new Object[initialCapacity];
+        first = NONE;
+        last = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+    }
+
+    public void add(@Nullable final E element) {
+
+        final int slot = allocate();
+        elements[slot] = element;
+        next[slot] = NONE;
+        previous[slot] = last;
+        if (last == NONE) {
+            first = slot;
+        } else {
+            next[last] = slot;
+        }
+        last = slot;
+        size++;
+        modifications++;
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Removes the last element, if there is one.
+     */
+    public void remove() {
+
+        if (last != NONE) {
+            unlink(last);
+        }
+    }
+
+    /**
+     * Returns the last element, or null if the list is empty.
+     */
+    @Nullable
+    public E get() {
+
+        return last == NONE ? null : cast(elements[last]);
+    }
+
+    /**
+     * Removes and returns the first element, or returns null if the list is empty.
+     */
+    @Nullable
+    public E poll() {
+
+        if (first == NONE) {
+            return null;
+        }
+
+        final E element = cast(elements[first]);
+        unlink(first);
+        return element;
+    }
+
+    /**
+     * Returns the first element, or null if the list is empty.
+     */
+    @Nullable
+    public E peek() {
+
+        return first == NONE ? null : cast(elements[first]);
+    }
+
+    /**
+     * Removes every element and puts every slot back in order, keeping the arrays.
+     */
+    public void clear() {
+
+        Arrays.fill(elements, 0, used, null);
+        first = NONE;
+        last = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int capacity() {
+
+        return elements.length;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            int slot = first;
+
+            @Override
+            public boolean hasNext() {
+                return slot != NONE;
+            }
+
+            @Override
+            @Nullable
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The list was modified during iteration.");
+                }
+                if (slot == NONE) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                final E element = cast(elements[slot]);
+                slot = next[slot];
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        Checks.notNull(action);
+
+        final int expectedModifications = modifications;
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            action.accept(cast(elements[slot]));
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The list was modified during iteration.");
+            }
+        }
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        forEach(element -> builder.append(element).append("->"));
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Takes a slot off the free list, or failing that the next never used slot, growing the
+     * arrays if every slot is in use.
+     */
+    private int allocate() {
+
+        if (free != NONE) {
+            final int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (used == elements.length) {
+            grow();
+        }
+        return used++;
+    }
+
+    private void unlink(final int slot) {
+
+        final int before = previous[slot];
+        final int after = next[slot];
+        if (before == NONE) {
+            first = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            last = before;
+        } else {
+            previous[after] = before;
+        }
+
+        elements[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+        modifications++;
+    }
+
+    private void grow() {
+
+        if (elements.length >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("The list cannot grow beyond " + MAXIMUM_CAPACITY + " elements.");
+        }
+
+        final int capacity = (int) Math.min(MAXIMUM_CAPACITY, elements.length + Math.max(1L, (long) elements.length >> 1));
+        next = Arrays.copyOf(next, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        elements = Arrays.copyOf(elements, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+}
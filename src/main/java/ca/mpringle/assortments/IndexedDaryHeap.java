@@ -0,0 +1,228 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min heap of int ids in [0, capacity), each queued with a {@link Compares}
+ * priority, for algorithms such as Dijkstra's that lower the priority of queued entries.
+ * The heap position of every id is kept in an array, so {@link #decreaseKey(int, Compares)}
+ * finds the entry in O(1) and sifts it up in O(log n), and nothing is allocated per
+ * operation.
+ * <p>
+ * Ids stand for whatever the caller indexes, e.g. graph vertices. Priorities that compare
+ * equal are polled in no particular order.
+ */
+public final class IndexedDaryHeap<P extends Compares<P>> {
+
+    private final int arity;
+    // ids in heap order
+    @NotNull
+    private final int[] heap;
+    // the heap position of each id, -1 if the id is not queued
+    @NotNull
+    private final int[] positions;
+    // the priority of each id, null if the id is not queued
+    @NotNull
+    private final Object[] priorities;
+    private int size;
+
+    /**
+     * @param capacity one more than the largest id the heap accepts
+     */
+    public IndexedDaryHeap(final int capacity) {
+        this(capacity, DaryHeap.DEFAULT_ARITY);
+    }
+
+    /**
+     * @param capacity one more than the largest id the heap accepts
+     */
+    public IndexedDaryHeap(final int capacity, final int arity) {
+
+        Checks.notNullAnd(capacity).isGreaterThanOrEqualTo(0, "capacity must be >= 0");
+        Checks.notNullAnd(arity).isGreaterThanOrEqualTo(2, "arity must be >= 2");
+
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.priorities = new Object[capacity];
+        Arrays.fill(positions, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Queues the id with the priority.
+     *
+     * @throws IllegalArgumentException if the id is already queued
+     */
+    public void offer(final int id, @NotNull final P priority) {
+
+        checkId(id);
+        Checks.notNull(priority);
+        if (positions[id] >= 0) {
+            throw new IllegalArgumentException("The id " + id + " is already queued.");
+        }
+
+        priorities[id] = priority;
+        siftUp(size++, id);
+    }
+
+    /**
+     * Lowers the priority of a queued id.
+     *
+     * @throws IllegalArgumentException if the id is not queued or the priority is greater than its current one
+     */
+    public void decreaseKey(final int id, @NotNull final P priority) {
+
+        checkId(id);
+        Checks.notNull(priority);
+        if (positions[id] < 0) {
+            throw new IllegalArgumentException("The id " + id + " is not queued.");
+        }
+        if (compare(priority, priorities[id]) > 0) {
+            throw new IllegalArgumentException("The priority " + priority + " is greater than " + priorities[id] + ".");
+        }
+
+        priorities[id] = priority;
+        siftUp(positions[id], id);
+    }
+
+    /**
+     * Removes and returns the id with the smallest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+
+        final int head = peek();
+        final int last = heap[--size];
+        positions[head] = -1;
+        priorities[head] = null;
+        if (size > 0) {
+            siftDown(0, last);
+        }
+
+        return head;
+    }
+
+    /**
+     * Returns the id with the smallest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty.");
+        }
+
+        return heap[0];
+    }
+
+    /**
+     * Returns the priority of the id, or null if it is not queued.
+     */
+    @Nullable
+    public P priority(final int id) {
+
+        checkId(id);
+        return cast(priorities[id]);
+    }
+
+    public boolean contains(final int id) {
+
+        checkId(id);
+        return positions[id] >= 0;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(heap[i]).append('=').append(priorities[heap[i]]).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    private void siftUp(final int index, final int id) {
+
+        final Object priority = priorities[id];
+        int hole = index;
+        while (hole > 0) {
+            final int parent = (hole - 1) / arity;
+            if (compare(priority, priorities[heap[parent]]) >= 0) {
+                break;
+            }
+            place(hole, heap[parent]);
+            hole = parent;
+        }
+        place(hole, id);
+    }
+
+    private void siftDown(final int index, final int id) {
+
+        final Object priority = priorities[id];
+        int hole = index;
+        int firstChild;
+        while ((firstChild = hole * arity + 1) < size) {
+            final int lastChild = Math.min(firstChild + arity, size);
+            int smallest = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (compare(priorities[heap[child]], priorities[heap[smallest]]) < 0) {
+                    smallest = child;
+                }
+            }
+            if (compare(priorities[heap[smallest]], priority) >= 0) {
+                break;
+            }
+            place(hole, heap[smallest]);
+            hole = smallest;
+        }
+        place(hole, id);
+    }
+
+    private void place(final int index, final int id) {
+
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void checkId(final int id) {
+
+        if (id < 0 || id >= positions.length) {
+            throw new IndexOutOfBoundsException("id " + id + " is out of bounds for capacity " + positions.length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Compares<Object>) stored).compareTo(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> P cast(@Nullable final Object priority) {
+
+        return (P) priority;
+    }
+}
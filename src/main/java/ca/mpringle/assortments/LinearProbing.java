@@ -0,0 +1,100 @@
+package ca.mpringle.assortments;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Linear probing shared by the open addressing tables. A table has a power of two number
+ * of slots and keeps the spread hash of each entry in an {@code int[]}, where 0 marks an
+ * empty slot, so a table hashes its entries with {@link #hash(Equals)}, which never returns 0.
+ * The entries themselves live in whatever parallel arrays the table needs: these methods
+ * only read the hashes and return slots, and the table moves its own entries.
+ * <p>
+ * Deleting shifts later members of the cluster back into the hole instead of leaving a
+ * tombstone, so every remaining entry stays reachable from its home slot:
+ * <pre>
+ *     int hole = slot;
+ *     for (int candidate; (candidate = LinearProbing.nextShift(hashes, hole)) >= 0; hole = candidate) {
+ *         // move the entry in candidate, with its hash, to hole
+ *     }
+ *     // empty hole, setting its hash to 0
+ * </pre>
+ */
+final class LinearProbing {
+
+    private LinearProbing() {
+    }
+
+    /**
+     * Returns the spread hash of the entry, with a spread hash of 0 mapped to 1.
+     */
+    static int hash(@NotNull final Equals<?> entry) {
+
+        final int hash = Hashing.spread(entry.computeHash());
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Returns the first slot of the probe sequence at or after {@code from} whose hash is the
+     * given one, or the bitwise complement of the empty slot that ends the probe, which is
+     * where an absent entry would go. Pass the hash as {@code from} to start at its home slot
+     * and the last slot returned + 1 to continue past an entry that only shared the hash.
+     */
+    static int match(@NotNull final int[] hashes, final int hash, final int from) {
+
+        final int mask = hashes.length - 1;
+        int slot = from & mask;
+        int candidateHash;
+        while ((candidateHash = hashes[slot]) != 0) {
+            if (candidateHash == hash) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return ~slot;
+    }
+
+    /**
+     * Returns the first empty slot of the probe sequence of the hash, where an entry known
+     * not to be present is placed. Any table whose empty slots hold 0 can be probed, such as
+     * an index of positions.
+     */
+    static int freeSlot(@NotNull final int[] table, final int hash) {
+
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns the next slot of the cluster after the hole whose entry may be shifted back into
+     * it, or -1 if the cluster ends first and the hole can be emptied.
+     */
+    static int nextShift(@NotNull final int[] hashes, final int hole) {
+
+        final int mask = hashes.length - 1;
+        int candidateHash;
+        for (int candidate = (hole + 1) & mask; (candidateHash = hashes[candidate]) != 0; candidate = (candidate + 1) & mask) {
+            if (mayShift(candidateHash & mask, candidate, hole, mask)) {
+                return candidate;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * An entry may move back into the hole only if the hole lies between its home slot and
+     * the slot it is in now, otherwise it would be moved in front of its home slot and
+     * probing would never reach it. For tables that cannot use {@link #nextShift(int[], int)}
+     * because their hashes are not where their empty slots are marked.
+     */
+    static boolean mayShift(final int home, final int candidate, final int hole, final int mask) {
+
+        return ((candidate - home) & mask) >= ((candidate - hole) & mask);
+    }
+}
@@ -0,0 +1,442 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * A hash set that iterates in insertion order, laid out like a compact dictionary.
+ * Elements are appended to a dense array, with their spread hashes in a parallel
+ * {@code int[]}, and a sparse open addressing table of {@code int} positions into the
+ * dense array is probed to find them. Iterating, streaming and copying to an array scan
+ * the dense array front to back.
+ * <p>
+ * An element costs a reference and a hash in the dense arrays plus one to two
+ * {@code int}s of index table, around 16 bytes, where a linked hash set spends a
+ * 40 byte entry object and a table reference on each element.
+ * <p>
+ * Removing an element leaves a hole in the dense array so that order is kept. Holes
+ * are dropped when the table is rebuilt, which happens once they outnumber the
+ * elements or the index table has to grow. Re-adding a removed element appends it
+ * at the end.
+ */
+public final class OrderedHashSet<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    // this value must be a power of two
+    private static final int INITIAL_CAPACITY = 4;
+    private static final ResizePolicy RESIZE_POLICY = ResizePolicy.defaults();
+
+    // elements in insertion order, null for a removed element
+    @NotNull
+    private Object[] entries;
+    @NotNull
+    private int[] entryHashes;
+    // the number of entries used, including holes
+    private int used;
+    // a slot holds 1 + the position of an element in entries, 0 is an empty slot
+    @NotNull
+    private int[] index;
+    private int size;
+    // incremented on every structural change so iterators can fail fast
+    private int modifications;
+
+    public OrderedHashSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private OrderedHashSet(final int capacity) {
+
+        index = new int[capacity];
+        entries = new Object[maximumUsed(capacity)];
+        entryHashes = new int[entries.length];
+        used = 0;
+        size = 0;
+    }
+
+    /**
+     * Creates a set that holds the expected number of elements without growing.
+     */
+    @NotNull
+    public static <E extends Equals<?>> OrderedHashSet<E> withExpectedSize(final int expectedSize) {
+
+        Checks.notNullAnd(expectedSize).isGreaterThanOrEqualTo(0, "expected size must be >= 0");
+
+        return new OrderedHashSet<>(Math.max(INITIAL_CAPACITY, RESIZE_POLICY.capacityFor(expectedSize)));
+    }
+
+    /**
+     * Adds the element at the end of the iteration order, unless it is already present.
+     */
+    public void add(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        final int hash = Hashing.spread(element.computeHash());
+        if (findSlot(element, hash) >= 0) {
+            return;
+        }
+
+        if (used == entries.length) {
+            // dropping the holes is enough while they make up at least half the entries
+            rebuild(size >= used / 2 ? RESIZE_POLICY.grownCapacity(index.length) : index.length);
+        }
+
+        entries[used] = element;
+        entryHashes[used] = hash;
+        used++;
+        place(index, used, hash);
+        size++;
+        modifications++;
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Removes the element, returning true if it was present.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        final int slot = findSlot(element, Hashing.spread(element.computeHash()));
+        if (slot < 0) {
+            return false;
+        }
+
+        final int position = index[slot] - 1;
+        deleteSlot(slot);
+        entries[position] = null;
+        size--;
+        modifications++;
+
+        // holes at the end are simply given back
+        while (used > 0 && entries[used - 1] == null) {
+            used--;
+        }
+        if (used - size > size) {
+            rebuild(Math.max(INITIAL_CAPACITY, RESIZE_POLICY.capacityFor(size)));
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        return findSlot(element, Hashing.spread(element.computeHash())) >= 0;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Copies the dense array in one go when it has no holes.
+     */
+    @Override
+    @NotNull
+    public E[] toArray(@NotNull final IntFunction<E[]> generator) {
+
+        if (size == 0) {
+            return super.toArray(generator);
+        }
+
+        final Object first = entries[nextPosition(0)];
+        @SuppressWarnings("unchecked") final E[] array = (E[]) Array.newInstance(first.getClass(), size);
+        if (used == size) {
+            System.arraycopy(entries, 0, array, 0, size);
+        } else {
+            int i = 0;
+            for (int position = 0; position < used; position++) {
+                if (entries[position] != null) {
+                    array[i++] = cast(entries[position]);
+                }
+            }
+        }
+
+        return array;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            int position = nextPosition(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < used;
+            }
+
+            @Override
+            @NotNull
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The set was modified during iteration.");
+                }
+                if (position >= used) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                final E element = cast(entries[position]);
+                position = nextPosition(position + 1);
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        new EntrySpliterator(0, used, size, true, modifications).forEachRemaining(action);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return new EntrySpliterator(0, used, size, true, modifications);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (final E element : this) {
+            builder.append(element).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    int capacity() {
+
+        return index.length;
+    }
+
+    /**
+     * Returns the index slot pointing at an element equal to the given one, or -1 if there is none.
+     */
+    private int findSlot(@NotNull final Object element, final int hash) {
+
+        final int mask = index.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = index[slot]) != 0) {
+            final int position = entry - 1;
+            if (entryHashes[position] == hash && isEqual(entries[position], element)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Empties an index slot and shifts later members of the same cluster back into the
+     * hole, see {@link LinearProbing}. The index holds positions rather than hashes, so the
+     * home slot of a candidate is read from the dense array.
+     */
+    private void deleteSlot(final int slot) {
+
+        final int mask = index.length - 1;
+        int hole = slot;
+        int candidate = (hole + 1) & mask;
+        while (index[candidate] != 0) {
+            final int home = entryHashes[index[candidate] - 1] & mask;
+            if (LinearProbing.mayShift(home, candidate, hole, mask)) {
+                index[hole] = index[candidate];
+                hole = candidate;
+            }
+            candidate = (candidate + 1) & mask;
+        }
+
+        index[hole] = 0;
+    }
+
+    /**
+     * Drops the holes from the dense arrays and rebuilds the index table at the given capacity.
+     */
+    private void rebuild(final int capacity) {
+
+        final Object[] newEntries = new Object[maximumUsed(capacity)];
+        final int[] newHashes = new int[newEntries.length];
+        int compacted = 0;
+        for (int position = 0; position < used; position++) {
+            if (entries[position] != null) {
+                newEntries[compacted] = entries[position];
+                newHashes[compacted] = entryHashes[position];
+                compacted++;
+            }
+        }
+
+        entries = newEntries;
+        entryHashes = newHashes;
+        used = compacted;
+        index = new int[capacity];
+        for (int position = 0; position < used; position++) {
+            place(index, position + 1, entryHashes[position]);
+        }
+    }
+
+    /**
+     * Returns the first position at or after the given one that holds an element, or used if there is none.
+     */
+    private int nextPosition(final int from) {
+
+        int position = from;
+        while (position < used && entries[position] == null) {
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * The number of entries, including holes, an index table of the given capacity may point
+     * at before it is rebuilt. This always leaves the table at least one empty slot.
+     */
+    private static int maximumUsed(final int capacity) {
+
+        return Math.min(capacity - 1, (int) (capacity * RESIZE_POLICY.getLoadFactor()));
+    }
+
+    private static void place(@NotNull final int[] table, final int entry, final int hash) {
+
+        table[LinearProbing.freeSlot(table, hash)] = entry;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@NotNull final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Covers the positions [position, fence) of the dense array, halving them on every split.
+     * Without holes a range knows its exact size, with holes only the unsplit root does and
+     * the parts estimate half of it each.
+     */
+    private final class EntrySpliterator implements Spliterator<E> {
+
+        private final int expectedModifications;
+        private final boolean dense;
+        private int position;
+        private final int fence;
+        private long estimate;
+        private boolean exact;
+
+        private EntrySpliterator(final int origin,
+                                 final int fence,
+                                 final long estimate,
+                                 final boolean exact,
+                                 final int expectedModifications) {
+            this.position = origin;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModifications = expectedModifications;
+            this.dense = used == size;
+            this.exact = exact;
+        }
+
+        @Override
+        public boolean tryAdvance(@NotNull final Consumer<? super E> action) {
+
+            checkForComodification();
+            while (position < fence) {
+                final Object element = entries[position++];
+                if (element != null) {
+                    action.accept(cast(element));
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(@NotNull final Consumer<? super E> action) {
+
+            final Object[] array = entries;
+            for (; position < fence; position++) {
+                if (array[position] != null) {
+                    action.accept(cast(array[position]));
+                }
+            }
+            checkForComodification();
+        }
+
+        @Override
+        @Nullable
+        public Spliterator<E> trySplit() {
+
+            final int middle = (position + fence) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            exact = false;
+            final EntrySpliterator prefix = new EntrySpliterator(position, middle, estimate, false, expectedModifications);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+
+            return dense ? fence - position : estimate;
+        }
+
+        @Override
+        public int characteristics() {
+
+            final int sized = dense ? Spliterator.SIZED | Spliterator.SUBSIZED : exact ? Spliterator.SIZED : 0;
+            return sized | Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+
+        private void checkForComodification() {
+
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The set was modified during iteration.");
+            }
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * An immutable hash set that shares structure between versions, for handing readers a
+ * stable snapshot without copying. {@link #with(Equals)} and {@link #without(Equals)}
+ * return a new set and leave this one as it was, copying only the path from the root to the
+ * changed element, O(log32 n) nodes, and sharing every other node.
+ * <p>
+ * The set is a hash array mapped trie. Each level consumes 5 bits of the hash, spread by
+ * {@link Hashing#spread(int)}, and a node keeps a 32 bit bitmap of which of its 32 children
+ * exist and an array of only those children, each either an element or a deeper node.
+ * Elements whose whole hashes collide share a collision node that is searched with
+ * {@link Equals#isEqual(Object)}.
+ * <p>
+ * A {@link Builder} adds and removes in place on nodes it created itself, so building a
+ * large set through {@link #builder()} or {@link #toBuilder()} does not copy a path for
+ * every element. Null elements are not permitted.
+ */
+public final class PersistentHashSet<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // a hash has 32 bits, so a level at this shift or deeper has none left to branch on
+    private static final int MAXIMUM_SHIFT = 32;
+
+    private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(null, 0);
+
+    @Nullable
+    private final Node root;
+    private final int size;
+
+    private PersistentHashSet(@Nullable final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <E extends Equals<?>> PersistentHashSet<E> empty() {
+
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    @NotNull
+    public static <E extends Equals<?>> PersistentHashSet<E> of(@NotNull final E... elements) {
+
+        final Builder<E> builder = builder();
+        builder.addAll(elements);
+        return builder.build();
+    }
+
+    @NotNull
+    public static <E extends Equals<?>> PersistentHashSet<E> copyOf(@NotNull final Iterable<E> elements) {
+
+        Checks.notNull(elements);
+
+        final Builder<E> builder = builder();
+        for (final E element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    @NotNull
+    public static <E extends Equals<?>> Builder<E> builder() {
+
+        return new Builder<>(null, 0);
+    }
+
+    /**
+     * Returns a builder starting from this set. Nodes are copied only as the builder changes
+     * them, so this set is unaffected.
+     */
+    @NotNull
+    public Builder<E> toBuilder() {
+
+        return new Builder<>(root, size);
+    }
+
+    /**
+     * Returns a set that also contains the element, or this set if it already does.
+     */
+    @NotNull
+    public PersistentHashSet<E> with(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        final Change change = new Change();
+        final Node updated = with(root, element, hash(element), null, change);
+        return change.changed ? new PersistentHashSet<>(updated, size + 1) : this;
+    }
+
+    /**
+     * Returns a set without the element, or this set if it does not contain it.
+     */
+    @NotNull
+    public PersistentHashSet<E> without(@Nullable final E element) {
+
+        if (element == null || root == null) {
+            return this;
+        }
+
+        final Change change = new Change();
+        final Node updated = root.without(element, hash(element), 0, null, change);
+        return change.changed ? new PersistentHashSet<>(updated, size - 1) : this;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        return element != null && contains(root, element);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new NodeIterator<>(root);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return Spliterators.spliterator(iterator(), size, Spliterator.DISTINCT | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (final E element : this) {
+            builder.append(element).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    /**
+     * Builds a {@link PersistentHashSet} by changing, in place, the nodes it has created since
+     * it was made or last built, and copying any node it shares with a built set before
+     * changing it. A builder is not thread safe.
+     */
+    public static final class Builder<E extends Equals<?>> {
+
+        @Nullable
+        private Node root;
+        private int size;
+        // nodes created by this builder since the last build carry this as their owner
+        @NotNull
+        private Object owner;
+
+        private Builder(@Nullable final Node root, final int size) {
+            this.root = root;
+            this.size = size;
+            this.owner = new Object();
+        }
+
+        public void add(@NotNull final E element) {
+
+            Checks.notNull(element);
+
+            final Change change = new Change();
+            root = with(root, element, hash(element), owner, change);
+            if (change.changed) {
+                size++;
+            }
+        }
+
+        @SafeVarargs
+        public final void addAll(@NotNull final E... elements) {
+
+            for (final E element : elements) {
+                add(element);
+            }
+        }
+
+        public boolean remove(@Nullable final E element) {
+
+            if (element == null || root == null) {
+                return false;
+            }
+
+            final Change change = new Change();
+            root = root.without(element, hash(element), 0, owner, change);
+            if (change.changed) {
+                size--;
+            }
+            return change.changed;
+        }
+
+        public boolean contains(@Nullable final E element) {
+
+            return element != null && PersistentHashSet.contains(root, element);
+        }
+
+        public int size() {
+
+            return size;
+        }
+
+        /**
+         * Returns a set of the elements added so far. The builder can carry on, but from
+         * then on copies the nodes it shares with the set rather than changing them.
+         */
+        @NotNull
+        public PersistentHashSet<E> build() {
+
+            owner = new Object();
+            return size == 0 ? empty() : new PersistentHashSet<>(root, size);
+        }
+    }
+
+    @NotNull
+    private static Node with(@Nullable final Node root, @NotNull final Object element, final int hash, @Nullable final Object owner, @NotNull final Change change) {
+
+        if (root == null) {
+            change.changed = true;
+            return new BitmapNode(1 << (hash & MASK), new Object[]{element}, owner);
+        }
+
+        return root.with(element, hash, 0, owner, change);
+    }
+
+    private static boolean contains(@Nullable final Node root, @NotNull final Object element) {
+
+        final int hash = hash(element);
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof CollisionNode) {
+                return ((CollisionNode) node).indexOf(element, hash) >= 0;
+            }
+
+            final BitmapNode bitmapNode = (BitmapNode) node;
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return false;
+            }
+
+            final Object child = bitmapNode.children[bitmapNode.index(bit)];
+            if (!(child instanceof Node)) {
+                return isEqual(child, element);
+            }
+            node = (Node) child;
+            shift += BITS;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a node holding the two elements, which hash differently or are not equal,
+     * branching on their hashes from the shift on.
+     */
+    @NotNull
+    private static Node merge(@NotNull final Object first, final int firstHash, @NotNull final Object second, final int secondHash, final int shift, @Nullable final Object owner) {
+
+        if (firstHash == secondHash || shift >= MAXIMUM_SHIFT) {
+            return new CollisionNode(firstHash, new Object[]{first, second}, owner);
+        }
+
+        final int firstBit = 1 << ((firstHash >>> shift) & MASK);
+        final int secondBit = 1 << ((secondHash >>> shift) & MASK);
+        if (firstBit == secondBit) {
+            return new BitmapNode(firstBit, new Object[]{merge(first, firstHash, second, secondHash, shift + BITS, owner)}, owner);
+        }
+
+        // children are kept in bit order
+        return Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new BitmapNode(firstBit | secondBit, new Object[]{first, second}, owner)
+                : new BitmapNode(firstBit | secondBit, new Object[]{second, first}, owner);
+    }
+
+    private static int hash(@NotNull final Object element) {
+
+        return Hashing.spread(((Equals<?>) element).computeHash());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+
+    @NotNull
+    private static Object[] inserted(@NotNull final Object[] array, final int index, @NotNull final Object value) {
+
+        final Object[] copy = new Object[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        copy[index] = value;
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        return copy;
+    }
+
+    @NotNull
+    private static Object[] removed(@NotNull final Object[] array, final int index) {
+
+        final Object[] copy = new Object[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    /**
+     * Whether an add or remove changed the set, which a builder cannot tell from the nodes
+     * returned as it may have changed them in place.
+     */
+    private static final class Change {
+
+        private boolean changed;
+    }
+
+    /**
+     * A trie node. Its children array holds elements and deeper nodes, and it may be changed
+     * in place only by the builder whose owner it carries.
+     */
+    private abstract static class Node {
+
+        @NotNull
+        Object[] children;
+        @Nullable
+        final Object owner;
+
+        Node(@NotNull final Object[] children, @Nullable final Object owner) {
+            this.children = children;
+            this.owner = owner;
+        }
+
+        final boolean isEditableBy(@Nullable final Object owner) {
+
+            return owner != null && this.owner == owner;
+        }
+
+        /**
+         * Returns the only child if it is an element, so a parent can hold it directly.
+         */
+        @Nullable
+        final Object singleElement() {
+
+            return children.length == 1 && !(children[0] instanceof Node) ? children[0] : null;
+        }
+
+        @NotNull
+        abstract Node with(@NotNull Object element, int hash, int shift, @Nullable Object owner, @NotNull Change change);
+
+        /**
+         * Returns the node without the element, or null if that leaves it empty.
+         */
+        @Nullable
+        abstract Node without(@NotNull Object element, int hash, int shift, @Nullable Object owner, @NotNull Change change);
+    }
+
+    private static final class BitmapNode extends Node {
+
+        private int bitmap;
+
+        private BitmapNode(final int bitmap, @NotNull final Object[] children, @Nullable final Object owner) {
+            super(children, owner);
+            this.bitmap = bitmap;
+        }
+
+        private int index(final int bit) {
+
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        @NotNull
+        Node with(@NotNull final Object element, final int hash, final int shift, @Nullable final Object owner, @NotNull final Change change) {
+
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            final int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                change.changed = true;
+                return updated(bitmap | bit, inserted(children, index, element), owner);
+            }
+
+            final Object child = children[index];
+            final Object replacement;
+            if (child instanceof Node) {
+                replacement = ((Node) child).with(element, hash, shift + BITS, owner, change);
+                if (replacement == child) {
+                    return this;
+                }
+            } else if (isEqual(child, element)) {
+                return this;
+            } else {
+                change.changed = true;
+                replacement = merge(child, hash(child), element, hash, shift + BITS, owner);
+            }
+
+            return replaced(index, replacement, owner);
+        }
+
+        @Override
+        @Nullable
+        Node without(@NotNull final Object element, final int hash, final int shift, @Nullable final Object owner, @NotNull final Change change) {
+
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int index = index(bit);
+            final Object child = children[index];
+            if (child instanceof Node) {
+                final Node node = (Node) child;
+                final Node replacement = node.without(element, hash, shift + BITS, owner, change);
+                if (!change.changed) {
+                    return this;
+                }
+                if (replacement == null) {
+                    return removedChild(bit, index, owner);
+                }
+                // a node left with a lone element is replaced by the element
+                final Object single = replacement.singleElement();
+                if (single != null) {
+                    return replaced(index, single, owner);
+                }
+                return replacement == node ? this : replaced(index, replacement, owner);
+            }
+
+            if (!isEqual(child, element)) {
+                return this;
+            }
+            change.changed = true;
+            return removedChild(bit, index, owner);
+        }
+
+        @Nullable
+        private Node removedChild(final int bit, final int index, @Nullable final Object owner) {
+
+            return bitmap == bit ? null : updated(bitmap ^ bit, removed(children, index), owner);
+        }
+
+        @NotNull
+        private Node replaced(final int index, @NotNull final Object child, @Nullable final Object owner) {
+
+            if (isEditableBy(owner)) {
+                children[index] = child;
+                return this;
+            }
+
+            final Object[] copy = children.clone();
+            copy[index] = child;
+            return new BitmapNode(bitmap, copy, owner);
+        }
+
+        @NotNull
+        private Node updated(final int bitmap, @NotNull final Object[] children, @Nullable final Object owner) {
+
+            if (isEditableBy(owner)) {
+                this.bitmap = bitmap;
+                this.children = children;
+                return this;
+            }
+
+            return new BitmapNode(bitmap, children, owner);
+        }
+    }
+
+    /**
+     * Holds elements whose spread hashes are all equal.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        private CollisionNode(final int hash, @NotNull final Object[] children, @Nullable final Object owner) {
+            super(children, owner);
+            this.hash = hash;
+        }
+
+        private int indexOf(@NotNull final Object element, final int hash) {
+
+            if (hash == this.hash) {
+                for (int i = 0; i < children.length; i++) {
+                    if (isEqual(children[i], element)) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        @NotNull
+        Node with(@NotNull final Object element, final int hash, final int shift, @Nullable final Object owner, @NotNull final Change change) {
+
+            if (hash != this.hash) {
+                // a collision node above the last level can still be split by a different hash
+                final BitmapNode parent = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[]{this}, owner);
+                return parent.with(element, hash, shift, owner, change);
+            }
+            if (indexOf(element, hash) >= 0) {
+                return this;
+            }
+
+            change.changed = true;
+            return updated(inserted(children, children.length, element), owner);
+        }
+
+        @Override
+        @Nullable
+        Node without(@NotNull final Object element, final int hash, final int shift, @Nullable final Object owner, @NotNull final Change change) {
+
+            final int index = indexOf(element, hash);
+            if (index < 0) {
+                return this;
+            }
+
+            change.changed = true;
+            return children.length == 1 ? null : updated(removed(children, index), owner);
+        }
+
+        @NotNull
+        private Node updated(@NotNull final Object[] children, @Nullable final Object owner) {
+
+            if (isEditableBy(owner)) {
+                this.children = children;
+                return this;
+            }
+
+            return new CollisionNode(hash, children, owner);
+        }
+    }
+
+    /**
+     * Walks the trie depth first with a stack of children arrays and positions in them.
+     */
+    private static final class NodeIterator<E> implements Iterator<E> {
+
+        // 7 bitmap levels of 5 bits, and a collision node below them
+        private static final int MAXIMUM_DEPTH = MAXIMUM_SHIFT / BITS + 2;
+
+        @NotNull
+        private final Object[][] arrays = new Object[MAXIMUM_DEPTH][];
+        @NotNull
+        private final int[] positions = new int[MAXIMUM_DEPTH];
+        private int depth;
+        @Nullable
+        private Object next;
+
+        private NodeIterator(@Nullable final Node root) {
+            depth = -1;
+            if (root != null) {
+                push(root);
+            }
+            next = advance();
+        }
+
+        private void push(@NotNull final Node node) {
+
+            depth++;
+            arrays[depth] = node.children;
+            positions[depth] = 0;
+        }
+
+        @Nullable
+        private Object advance() {
+
+            while (depth >= 0) {
+                final Object[] array = arrays[depth];
+                if (positions[depth] == array.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+
+                final Object child = array[positions[depth]++];
+                if (child instanceof Node) {
+                    push((Node) child);
+                } else {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @NotNull
+        @SuppressWarnings("unchecked")
+        public E next() {
+
+            if (next == null) {
+                throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+            }
+
+            final Object element = next;
+            next = advance();
+            return (E) element;
+        }
+    }
+}
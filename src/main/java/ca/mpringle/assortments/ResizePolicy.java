@@ -0,0 +1,208 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Objects;
+
+/**
+ * Decides when a hash assortment resizes its table and to what capacity. Policies are
+ * immutable, start from {@link #defaults()} and change one setting at a time, e.g.
+ * <pre>
+ *     ResizePolicy.defaults().withLoadFactor(0.5).withIncrementalResize(true);
+ * </pre>
+ * Table capacities are always powers of two, so a growth factor is rounded up to the next
+ * power of two, and growing by 1.5 doubles the table just as growing by 2 does.
+ * <p>
+ * A table shrinks when its load falls below {@code loadFactor / (2 * growth)}, half of the
+ * load right after growing, halving until the load is back above that threshold. A set
+ * hovering around either threshold therefore never resizes back and forth.
+ */
+public final class ResizePolicy extends AbstractEquals<ResizePolicy> {
+
+    private static final double DEFAULT_LOAD_FACTOR = 0.75D;
+    private static final double DEFAULT_GROWTH_FACTOR = 2D;
+    private static final ResizePolicy DEFAULTS = new ResizePolicy(
+            DEFAULT_LOAD_FACTOR,
+            DEFAULT_GROWTH_FACTOR,
+            Hashing.MAXIMUM_CAPACITY,
+            false
+    );
+
+    private final double loadFactor;
+    private final double growthFactor;
+    // the growth factor rounded up to a power of two
+    private final int growthMultiple;
+    private final int maxCapacity;
+    private final boolean incrementalResize;
+
+    private ResizePolicy(final double loadFactor,
+                         final double growthFactor,
+                         final int maxCapacity,
+                         final boolean incrementalResize) {
+
+        this.loadFactor = Checks
+                .notNullAnd(loadFactor)
+                .isValid(lf -> lf > 0D && lf < 1D, "load factor must be > 0 and < 1, but was %s", loadFactor);
+        this.growthFactor = Checks
+                .notNullAnd(growthFactor)
+                .isValid(gf -> gf > 1D && gf <= Hashing.MAXIMUM_CAPACITY, "growth factor must be > 1, but was %s", growthFactor);
+        this.growthMultiple = Hashing.tableSizeFor((int) Math.ceil(growthFactor));
+        this.maxCapacity = Checks
+                .notNullAnd(maxCapacity)
+                .isValid(
+                        c -> c > 0 && c <= Hashing.MAXIMUM_CAPACITY && Integer.bitCount(c) == 1,
+                        "max capacity must be a power of two <= %s, but was %s", Hashing.MAXIMUM_CAPACITY, maxCapacity
+                );
+        this.incrementalResize = incrementalResize;
+    }
+
+    /**
+     * Grows by doubling once the table is 3/4 full, up to 2^30 slots, all at once.
+     */
+    @NotNull
+    public static ResizePolicy defaults() {
+
+        return DEFAULTS;
+    }
+
+    /**
+     * @param loadFactor the fraction of slots that may be in use before the table grows, between 0 and 1
+     */
+    @NotNull
+    public ResizePolicy withLoadFactor(final double loadFactor) {
+
+        return new ResizePolicy(loadFactor, growthFactor, maxCapacity, incrementalResize);
+    }
+
+    /**
+     * @param growthFactor how much larger a grown table is, > 1 and rounded up to a power of two
+     */
+    @NotNull
+    public ResizePolicy withGrowthFactor(final double growthFactor) {
+
+        return new ResizePolicy(loadFactor, growthFactor, maxCapacity, incrementalResize);
+    }
+
+    /**
+     * @param maxCapacity the largest table allowed, a power of two; adding to a full table of
+     *                    this capacity throws {@link IllegalStateException}
+     */
+    @NotNull
+    public ResizePolicy withMaxCapacity(final int maxCapacity) {
+
+        return new ResizePolicy(loadFactor, growthFactor, maxCapacity, incrementalResize);
+    }
+
+    /**
+     * @param incrementalResize when true, a resize is spread over subsequent operations
+     *                          instead of happening all at once
+     */
+    @NotNull
+    public ResizePolicy withIncrementalResize(final boolean incrementalResize) {
+
+        return new ResizePolicy(loadFactor, growthFactor, maxCapacity, incrementalResize);
+    }
+
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public boolean isIncrementalResize() {
+        return incrementalResize;
+    }
+
+    /**
+     * Returns the capacity of a new table asked to hold the given number of slots.
+     */
+    int initialCapacity(final int requestedCapacity) {
+
+        return Math.min(maxCapacity, Hashing.tableSizeFor(requestedCapacity));
+    }
+
+    /**
+     * Returns the smallest capacity that holds the given number of elements without growing.
+     */
+    int capacityFor(final int expectedSize) {
+
+        final long required = (long) Math.ceil(expectedSize / loadFactor);
+        return initialCapacity((int) Math.min(required, Hashing.MAXIMUM_CAPACITY));
+    }
+
+    boolean shouldGrow(final int size, final int capacity) {
+
+        return size > capacity * loadFactor;
+    }
+
+    int grownCapacity(final int capacity) {
+
+        if (capacity >= maxCapacity) {
+            throw new IllegalStateException("The table cannot grow beyond " + maxCapacity + " slots.");
+        }
+
+        return (int) Math.min((long) capacity * growthMultiple, maxCapacity);
+    }
+
+    boolean shouldShrink(final int size, final int capacity) {
+
+        return size < capacity * shrinkLoadFactor();
+    }
+
+    /**
+     * Returns the capacity to shrink to, which is the capacity itself when no shrink is due.
+     */
+    int shrunkCapacity(final int size, final int capacity, final int minimumCapacity) {
+
+        final double shrinkLoadFactor = shrinkLoadFactor();
+
+        int shrunk = capacity;
+        while (shrunk / 2 >= minimumCapacity && size < shrunk * shrinkLoadFactor) {
+            shrunk /= 2;
+        }
+
+        return shrunk;
+    }
+
+    @Override
+    public boolean isEqual(@Nullable final ResizePolicy instance) {
+
+        if (instance == null) {
+            return false;
+        }
+
+        return Double.compare(loadFactor, instance.loadFactor) == 0
+                && Double.compare(growthFactor, instance.growthFactor) == 0
+                && maxCapacity == instance.maxCapacity
+                && incrementalResize == instance.incrementalResize;
+    }
+
+    @Override
+    public int computeHash() {
+
+        return Objects.hash(loadFactor, growthFactor, maxCapacity, incrementalResize);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return String.format(
+                "ResizePolicy(loadFactor=%s, growthFactor=%s, maxCapacity=%s, incrementalResize=%s)",
+                loadFactor, growthFactor, maxCapacity, incrementalResize
+        );
+    }
+
+    private double shrinkLoadFactor() {
+
+        return loadFactor / (2D * growthMultiple);
+    }
+}
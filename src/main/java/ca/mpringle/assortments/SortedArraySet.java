@@ -0,0 +1,451 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * An immutable sorted set of {@link Compares} elements in a single flat array, for ordered
+ * sets built once and read many times. It needs one reference per element, where a
+ * {@link HashSet} needs a reference and a cached hash per slot with a quarter of its slots
+ * empty, and it answers {@link #floor(Compares)}, {@link #ceiling(Compares)} and
+ * {@link #subSet(Compares, Compares)}, which a hash set cannot.
+ * <p>
+ * It is not a faster {@link HashSet}. Every step of a search loads an element to compare
+ * it, where a hash set usually settles on its cached hash, so in
+ * {@code SortedArraySetBenchmark} {@link #contains(Compares)} took about 16 ns against 6 ns
+ * for {@link HashSet#contains(Equals)} with 64 elements, and 510 ns against 10 ns with a
+ * million. Prefer a {@link HashSet} when only membership matters.
+ * <p>
+ * By default the elements are laid out in {@link Layout#EYTZINGER} order, the order of a
+ * breadth first walk of a balanced search tree. A search then reads the array from the
+ * front, so the first levels of every search share a few cache lines, and each step picks
+ * the next position arithmetically rather than with a branch. Iteration is still in
+ * ascending order, but walks the array back and forth. {@link Layout#SORTED} keeps the
+ * elements in ascending order instead, which makes iterating and {@link #subSet(Compares, Compares)}
+ * a contiguous scan at the cost of a classic binary search.
+ * <p>
+ * Elements are ordered and identified by {@link Compares#compareTo(Object)}, which must be
+ * consistent with {@link Equals#isEqual(Object)}, as it is by default.
+ */
+public final class SortedArraySet<E extends Compares<E>> extends AbstractAssortment<E> {
+
+    /**
+     * How the elements are ordered in the array.
+     */
+    public enum Layout {
+
+        /**
+         * Breadth first order of a balanced search tree, the fastest to search.
+         */
+        EYTZINGER,
+
+        /**
+         * Ascending order, the fastest to iterate.
+         */
+        SORTED
+    }
+
+    @NotNull
+    private final Layout layout;
+    // positions run from 1 to size, so that the children of position k are 2k and 2k + 1
+    // in the eytzinger layout, and 0 means no position in either layout
+    @NotNull
+    private final Object[] elements;
+    private final int size;
+
+    private SortedArraySet(@NotNull final Layout layout, @NotNull final Object[] elements, final int size) {
+        this.layout = layout;
+        this.elements = elements;
+        this.size = size;
+    }
+
+    /**
+     * Creates a set of the elements in the eytzinger layout, dropping any that compare equal
+     * to an earlier one.
+     */
+    @SafeVarargs
+    @NotNull
+    public static <E extends Compares<E>> SortedArraySet<E> of(@NotNull final E... elements) {
+
+        return of(Layout.EYTZINGER, elements);
+    }
+
+    /**
+     * Creates a set of the elements in the given layout, dropping any that compare equal to
+     * an earlier one.
+     */
+    @SafeVarargs
+    @NotNull
+    public static <E extends Compares<E>> SortedArraySet<E> of(@NotNull final Layout layout, @NotNull final E... elements) {
+
+        Checks.notNull(layout);
+        final Object[] sorted = Checks.notNull(elements).clone();
+        for (final Object element : sorted) {
+            Checks.notNull(element);
+        }
+        Arrays.sort(sorted, SortedArraySet::compare);
+
+        int size = 0;
+        for (final Object element : sorted) {
+            if (size == 0 || compare(sorted[size - 1], element) != 0) {
+                sorted[size++] = element;
+            }
+        }
+
+        final Object[] laidOut = new Object[size + 1];
+        if (layout == Layout.SORTED) {
+            System.arraycopy(sorted, 0, laidOut, 1, size);
+        } else {
+            fill(sorted, laidOut, 0, 1);
+        }
+
+        return new SortedArraySet<>(layout, laidOut, size);
+    }
+
+    @NotNull
+    public Layout getLayout() {
+
+        return layout;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        final int position = lowerBound(element);
+        return position != 0 && compare(elements[position], element) == 0;
+    }
+
+    /**
+     * Returns the smallest element greater than or equal to the given one, or null if there is none.
+     */
+    @Nullable
+    public E ceiling(@NotNull final E element) {
+
+        return cast(elements[lowerBound(Checks.notNull(element))]);
+    }
+
+    /**
+     * Returns the largest element less than or equal to the given one, or null if there is none.
+     */
+    @Nullable
+    public E floor(@NotNull final E element) {
+
+        Checks.notNull(element);
+        if (size == 0) {
+            return null;
+        }
+
+        final int position = lowerBound(element);
+        if (position != 0 && compare(elements[position], element) == 0) {
+            return cast(elements[position]);
+        }
+
+        // every element is smaller when there is no lower bound, otherwise the one before it is the floor
+        return cast(elements[position == 0 ? last(1) : predecessor(position)]);
+    }
+
+    /**
+     * Returns the smallest element.
+     *
+     * @throws NoSuchElementException if the set is empty
+     */
+    @NotNull
+    public E first() {
+
+        checkNotEmpty();
+        return cast(elements[first(1)]);
+    }
+
+    /**
+     * Returns the largest element.
+     *
+     * @throws NoSuchElementException if the set is empty
+     */
+    @NotNull
+    public E last() {
+
+        checkNotEmpty();
+        return cast(elements[last(1)]);
+    }
+
+    /**
+     * Returns a view of the elements from the first, inclusive, to the second, exclusive.
+     *
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    @NotNull
+    public AbstractAssortment<E> subSet(@NotNull final E from, @NotNull final E to) {
+
+        Checks.notNull(from);
+        Checks.notNull(to);
+        if (compare(from, to) > 0) {
+            throw new IllegalArgumentException("The range is empty, " + from + " is greater than " + to + ".");
+        }
+
+        return new SubSet(from, to);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    /**
+     * Iterates in ascending order whatever the layout.
+     */
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new PositionIterator(size == 0 ? 0 : first(1), null);
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        final int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        if (layout == Layout.SORTED) {
+            @SuppressWarnings({"unchecked", "rawtypes"}) final Spliterator<E> spliterator = (Spliterator) Spliterators.spliterator(elements, 1, size + 1, characteristics);
+            return spliterator;
+        }
+
+        return Spliterators.spliterator(iterator(), size, characteristics);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return elementsToString();
+    }
+
+    /**
+     * Returns the position of the smallest element greater than or equal to the given one, or 0.
+     */
+    private int lowerBound(@NotNull final Object element) {
+
+        if (layout == Layout.SORTED) {
+            int low = 1;
+            int high = size + 1;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (compare(elements[middle], element) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low > size ? 0 : low;
+        }
+
+        // descend right past smaller elements and left otherwise, the lower bound is where the
+        // walk last went left, found by dropping the trailing right turns and the left turn before them
+        int position = 1;
+        while (position <= size) {
+            position = 2 * position + (compare(elements[position], element) < 0 ? 1 : 0);
+        }
+
+        return position >>> (Integer.numberOfTrailingZeros(~position) + 1);
+    }
+
+    /**
+     * Returns the position after the given one in ascending order, or 0 at the end.
+     */
+    private int successor(final int position) {
+
+        if (layout == Layout.SORTED) {
+            return position < size ? position + 1 : 0;
+        }
+        if (2 * position + 1 <= size) {
+            return first(2 * position + 1);
+        }
+
+        // climb out of the right children, then out of the left child the walk came from
+        return position >>> (Integer.numberOfTrailingZeros(~position) + 1);
+    }
+
+    /**
+     * Returns the position before the given one in ascending order, or 0 at the start.
+     */
+    private int predecessor(final int position) {
+
+        if (layout == Layout.SORTED) {
+            return position - 1;
+        }
+        if (2 * position <= size) {
+            return last(2 * position);
+        }
+
+        return position >>> (Integer.numberOfTrailingZeros(position) + 1);
+    }
+
+    /**
+     * Returns the position of the smallest element in the subtree at the position.
+     */
+    private int first(final int position) {
+
+        if (layout == Layout.SORTED) {
+            return position;
+        }
+
+        int first = position;
+        while (2 * first <= size) {
+            first = 2 * first;
+        }
+
+        return first;
+    }
+
+    /**
+     * Returns the position of the largest element in the subtree at the position.
+     */
+    private int last(final int position) {
+
+        if (layout == Layout.SORTED) {
+            return size;
+        }
+
+        int last = position;
+        while (2 * last + 1 <= size) {
+            last = 2 * last + 1;
+        }
+
+        return last;
+    }
+
+    private void checkNotEmpty() {
+
+        if (size == 0) {
+            throw new NoSuchElementException("The set is empty.");
+        }
+    }
+
+    /**
+     * Copies the sorted elements, from the given index on, into the subtree at the position
+     * with an in order walk, returning the index of the next element to copy.
+     */
+    private static int fill(@NotNull final Object[] sorted,
+                            @NotNull final Object[] laidOut,
+                            final int index,
+                            final int position) {
+
+        if (position >= laidOut.length) {
+            return index;
+        }
+
+        int next = fill(sorted, laidOut, index, 2 * position);
+        laidOut[position] = sorted[next++];
+        return fill(sorted, laidOut, next, 2 * position + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Compares<Object>) stored).compareTo(element);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Walks the positions in ascending order, stopping at the first element that is not less
+     * than the end, if there is one.
+     */
+    private final class PositionIterator implements Iterator<E> {
+
+        @Nullable
+        private final Object end;
+        private int position;
+
+        private PositionIterator(final int position, @Nullable final Object end) {
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            return position != 0 && (end == null || compare(elements[position], end) < 0);
+        }
+
+        @Override
+        @NotNull
+        public E next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+            }
+
+            final E element = cast(elements[position]);
+            position = successor(position);
+            return element;
+        }
+    }
+
+    /**
+     * The elements in [from, to).
+     */
+    private final class SubSet extends AbstractAssortment<E> {
+
+        @NotNull
+        private final E from;
+        @NotNull
+        private final E to;
+
+        private SubSet(@NotNull final E from, @NotNull final E to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+
+            int size = 0;
+            for (final Iterator<E> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+                size++;
+            }
+
+            return size;
+        }
+
+        @Override
+        public boolean contains(@Nullable final E element) {
+
+            return element != null
+                    && compare(element, from) >= 0
+                    && compare(element, to) < 0
+                    && SortedArraySet.this.contains(element);
+        }
+
+        @Override
+        @NotNull
+        public Iterator<E> iterator() {
+
+            return new PositionIterator(lowerBound(from), to);
+        }
+
+        @Override
+        @NotNull
+        public String toString() {
+
+            return elementsToString();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A hash set in the style of a Swiss table, intended for read heavy membership tests.
+ * <p>
+ * Every slot has a control byte, either empty, deleted, or the low 7 bits of the element's
+ * spread hash. Slots are probed in groups of 8 whose control bytes are packed into one
+ * {@code long}, and a group is matched against a tag with a handful of word operations
+ * (SIMD within a register), so {@link Equals#isEqual(Object)} is only called on slots whose
+ * tag matches, roughly one in 128 of the occupied slots examined. Groups are visited in
+ * triangular order, which reaches every group of a power-of-two table.
+ * <p>
+ * Hashes are not cached, a set costs one reference and one control byte per slot, and
+ * resizing recomputes {@link Equals#computeHash()} for every element.
+ */
+public final class SwissHashSet<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    private static final int GROUP_WIDTH = Long.BYTES;
+    private static final int INITIAL_CAPACITY = GROUP_WIDTH;
+    // at 7/8 full an 8 slot group still has on average one free slot to stop a probe
+    private static final double MAX_LOAD_FACTOR = 0.875D;
+
+    private static final int EMPTY = 0x80;
+    private static final int DELETED = 0xFE;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+    private static final long ALL_EMPTY = LSBS * EMPTY;
+
+    private final double maxLoadFactor;
+
+    // control bytes, 8 per group, the byte of slot i is byte i % 8 of control[i / 8]
+    @NotNull
+    private long[] control;
+    // null for empty and deleted slots
+    @NotNull
+    private Object[] elements;
+    private int size;
+    // deleted slots still end probes as if they were full, they are reclaimed by a rehash
+    private int deleted;
+    private int modifications;
+
+    public SwissHashSet() {
+        this(INITIAL_CAPACITY, MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initialCapacity rounded up to a power of two of at least 8
+     * @param maxLoadFactor   the fraction of slots, including deleted ones, that may be
+     *                        used before the table grows, at most 7/8
+     */
+    public SwissHashSet(final int initialCapacity, final double maxLoadFactor) {
+
+        Checks.notNullAnd(initialCapacity).isGreaterThan(0, "initial capacity must be > 0");
+        this.maxLoadFactor = Checks
+                .notNullAnd(maxLoadFactor)
+                .isBetween(0.125D, MAX_LOAD_FACTOR, "max load factor must be between 1/8 and 7/8, but was %s", maxLoadFactor);
+
+        allocate(Math.max(GROUP_WIDTH, Hashing.tableSizeFor(initialCapacity)));
+    }
+
+    public void add(@NotNull final E element) {
+
+        Checks.notNull(element);
+
+        final int hash = Hashing.spread(element.computeHash());
+        if (find(element, hash) >= 0) {
+            return;
+        }
+
+        if (size + deleted + 1 > elements.length * maxLoadFactor) {
+            // a table mostly made of deleted slots is cleaned up rather than grown
+            rehash(size + 1 > elements.length * maxLoadFactor / 2 ? elements.length * 2 : elements.length);
+        }
+
+        place(element, hash);
+        size++;
+        modifications++;
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Removes the element, returning true if it was present.
+     */
+    public boolean remove(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        final int slot = find(element, Hashing.spread(element.computeHash()));
+        if (slot < 0) {
+            return false;
+        }
+
+        // a probe that reached this group stops at any empty slot in it, so when there is one
+        // the slot can be marked empty rather than deleted
+        final int group = slot / GROUP_WIDTH;
+        final boolean groupHasEmpty = matchEmpty(control[group]) != 0;
+        setControl(slot, groupHasEmpty ? EMPTY : DELETED);
+        if (!groupHasEmpty) {
+            deleted++;
+        }
+        elements[slot] = null;
+        size--;
+        modifications++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(@Nullable final E element) {
+
+        if (element == null) {
+            return false;
+        }
+
+        return find(element, Hashing.spread(element.computeHash())) >= 0;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            final Object[] table = elements;
+            int slot = nextOccupiedSlot(table, 0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < table.length;
+            }
+
+            @Override
+            @NotNull
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The set was modified during iteration.");
+                }
+                if (slot >= table.length) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                @SuppressWarnings("unchecked") final E element = (E) table[slot];
+                slot = nextOccupiedSlot(table, slot + 1);
+                return element;
+            }
+        };
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return Spliterators.spliterator(iterator(), size, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        for (final E element : this) {
+            builder.append(element).append(", ");
+        }
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    /**
+     * Returns the slot holding an element equal to the given one, or -1 if there is none.
+     */
+    private int find(@NotNull final Object element, final int hash) {
+
+        final long tag = LSBS * (hash & 0x7F);
+        final int groupMask = control.length - 1;
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            final long word = control[group];
+            for (long matches = matchTag(word, tag); matches != 0; matches &= matches - 1) {
+                final int slot = group * GROUP_WIDTH + (Long.numberOfTrailingZeros(matches) >>> 3);
+                final Object candidate = elements[slot];
+                // the tag match can have false positives, which the null check and isEqual reject
+                if (candidate != null && isEqual(candidate, element)) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * Places an element known not to be present into the first empty or deleted slot of its probe sequence.
+     */
+    private void place(@NotNull final Object element, final int hash) {
+
+        final int groupMask = control.length - 1;
+        int group = (hash >>> 7) & groupMask;
+        for (int step = 1; ; step++) {
+            final long available = matchEmptyOrDeleted(control[group]);
+            if (available != 0) {
+                final int slot = group * GROUP_WIDTH + (Long.numberOfTrailingZeros(available) >>> 3);
+                if (controlAt(slot) == DELETED) {
+                    deleted--;
+                }
+                setControl(slot, hash & 0x7F);
+                elements[slot] = element;
+                return;
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    private void rehash(final int newCapacity) {
+
+        Checks.notNullAnd(newCapacity).isLessThanOrEqualTo(Hashing.MAXIMUM_CAPACITY, "The set cannot grow beyond %s slots.", Hashing.MAXIMUM_CAPACITY);
+
+        final Object[] oldElements = elements;
+        allocate(newCapacity);
+
+        for (final Object element : oldElements) {
+            if (element != null) {
+                place(element, Hashing.spread(((Equals<?>) element).computeHash()));
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+
+        control = new long[capacity / GROUP_WIDTH];
+        Arrays.fill(control, ALL_EMPTY);
+        elements = new Object[capacity];
+        deleted = 0;
+    }
+
+    private int controlAt(final int slot) {
+
+        return (int) (control[slot / GROUP_WIDTH] >>> ((slot % GROUP_WIDTH) * Byte.SIZE)) & 0xFF;
+    }
+
+    private void setControl(final int slot, final int value) {
+
+        final int group = slot / GROUP_WIDTH;
+        final int shift = (slot % GROUP_WIDTH) * Byte.SIZE;
+        control[group] = (control[group] & ~(0xFFL << shift)) | ((long) value << shift);
+    }
+
+    /**
+     * Sets the high bit of every byte equal to the tag. A byte just above a true match can
+     * also be flagged, callers confirm matches with isEqual.
+     */
+    private static long matchTag(final long word, final long tag) {
+
+        final long x = word ^ tag;
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * Sets the high bit of every empty byte. Empty is the only control value with its high
+     * bit set and bit 1 clear, the shift lines bit 1 up with bit 7.
+     */
+    private static long matchEmpty(final long word) {
+
+        return word & (~word << 6) & MSBS;
+    }
+
+    /**
+     * Sets the high bit of every empty or deleted byte. These are the only control values
+     * with their high bit set, and both have bit 0 clear, unlike a tag with its high bit set
+     * would after the shift lines bit 0 up with bit 7.
+     */
+    private static long matchEmptyOrDeleted(final long word) {
+
+        return word & ~(word << 7) & MSBS;
+    }
+
+    private static int nextOccupiedSlot(@NotNull final Object[] table, final int from) {
+
+        int slot = from;
+        while (slot < table.length && table[slot] == null) {
+            slot++;
+        }
+
+        return slot;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean isEqual(@NotNull final Object stored, @NotNull final Object element) {
+
+        return ((Equals) stored).isEqual(element);
+    }
+}
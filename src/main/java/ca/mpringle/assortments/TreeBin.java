@@ -0,0 +1,106 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * A group of {@link Compares} elements of a single class that all share one hash. Hash
+ * assortments replace a long run of such elements with a bin occupying a single slot, so
+ * that finding one of them is a search in a balanced tree instead of a linear scan of
+ * {@link Equals#isEqual(Object)} calls. This bounds the cost of deliberately colliding
+ * input, e.g. strings chosen to share a hash code.
+ * <p>
+ * Within a bin elements are identified by {@link Compares#compareTo(Object)}, which must
+ * be consistent with {@link Equals#isEqual(Object)}, as it is by default.
+ */
+final class TreeBin implements Iterable<Object> {
+
+    // the number of elements sharing a hash at which they are moved into a bin
+    static final int TREEIFY_THRESHOLD = 8;
+
+    @NotNull
+    private final Class<?> elementClass;
+    @NotNull
+    private final TreeSet<Object> tree;
+
+    TreeBin(@NotNull final Object element) {
+
+        this.elementClass = element.getClass();
+        this.tree = new TreeSet<>(TreeBin::compare);
+        tree.add(element);
+    }
+
+    /**
+     * Only {@link Compares} elements can be kept in a bin, and only alongside elements of
+     * the same class, which are the only ones they can be assumed to compare against.
+     */
+    static boolean isTreeifiable(@Nullable final Object element) {
+
+        return element instanceof Compares;
+    }
+
+    boolean accepts(@NotNull final Object element) {
+
+        return element.getClass() == elementClass;
+    }
+
+    boolean contains(@NotNull final Object element) {
+
+        return accepts(element) && tree.contains(element);
+    }
+
+    /**
+     * Returns true if the element was added, false if an equal element was already present.
+     */
+    boolean add(@NotNull final Object element) {
+
+        return tree.add(element);
+    }
+
+    boolean remove(@NotNull final Object element) {
+
+        return accepts(element) && tree.remove(element);
+    }
+
+    int removeIf(@NotNull final Predicate<Object> filter) {
+
+        final int sizeBefore = tree.size();
+        tree.removeIf(filter);
+        return sizeBefore - tree.size();
+    }
+
+    int size() {
+
+        return tree.size();
+    }
+
+    @NotNull
+    Object first() {
+
+        return tree.first();
+    }
+
+    @Override
+    @NotNull
+    public Iterator<Object> iterator() {
+
+        return tree.iterator();
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return tree.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(@NotNull final Object a, @NotNull final Object b) {
+
+        return ((Compares) a).compareTo(b);
+    }
+}
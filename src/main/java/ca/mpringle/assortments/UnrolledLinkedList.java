@@ -0,0 +1,320 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Checks;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A {@link LinkedList} whose nodes each hold an array of up to a chunk size of elements,
+ * between 16 and 64, instead of a single element. A node costs about 40 bytes whatever
+ * its size, so a full chunk of 32 adds a little over a byte per element where a node per
+ * element adds around 32, and iterating reads each chunk front to back.
+ * <p>
+ * Like {@link LinkedList} it appends with {@link #add(Equals)}, pops the last element with
+ * {@link #remove()} and reads it with {@link #get()}, all in O(1), and accepts null
+ * elements. {@link #addAll(UnrolledLinkedList)} splices in O(1) by moving the nodes of the
+ * other list into this one, so the two never share a node.
+ * <p>
+ * Every node but the last is at least half full. Appending only ever fills the last node
+ * and popping only ever empties it, and a splice moves at most a chunk of elements between
+ * the nodes where the lists meet to keep it so.
+ */
+public final class UnrolledLinkedList<E extends Equals<?>> extends AbstractAssortment<E> {
+
+    static final int MINIMUM_CHUNK_SIZE = 16;
+    static final int MAXIMUM_CHUNK_SIZE = 64;
+    static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private final int chunkSize;
+    @Nullable
+    private Node first;
+    @Nullable
+    private Node last;
+    private int size;
+    // incremented on every change so iterators can fail fast
+    private int modifications;
+
+    public UnrolledLinkedList() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public UnrolledLinkedList(final int chunkSize) {
+
+        Checks
+                .notNullAnd(chunkSize)
+                .isGreaterThanOrEqualToAnd(MINIMUM_CHUNK_SIZE, "chunk size must be >= %s", MINIMUM_CHUNK_SIZE)
+                .isLessThanOrEqualTo(MAXIMUM_CHUNK_SIZE, "chunk size must be <= %s", MAXIMUM_CHUNK_SIZE);
+
+        this.chunkSize = chunkSize;
+        first = null;
+        last = null;
+        size = 0;
+    }
+
+    public void add(@Nullable final E element) {
+
+        if (last == null) {
+            first = new Node(chunkSize, null);
+            last = first;
+        } else if (last.count == last.elements.length) {
+            final Node node = new Node(chunkSize, last);
+            last.next = node;
+            last = node;
+        }
+
+        last.elements[last.count++] = element;
+        size++;
+        modifications++;
+    }
+
+    @SafeVarargs
+    public final void addAll(@NotNull final E... elements) {
+
+        for (final E element : elements) {
+            add(element);
+        }
+    }
+
+    /**
+     * Moves every element of the list to the end of this one in O(1), leaving the list empty.
+     * The nodes change owner rather than being shared, so later changes to either list do
+     * not show in the other. If the last node of this list is less than half full, elements
+     * are moved between it and the first nodes of the list until it is not or one of them
+     * empties, which copies fewer elements than a chunk holds.
+     *
+     * @throws IllegalArgumentException if the list is this list
+     */
+    public void addAll(@NotNull final UnrolledLinkedList<E> list) {
+
+        Checks.notNull(list);
+        if (list == this) {
+            throw new IllegalArgumentException("A list cannot be spliced into itself.");
+        }
+        if (list.first == null) {
+            return;
+        }
+
+        // the last node kept from this list and the first kept from the other
+        Node tail = last;
+        Node head = list.first;
+        while (tail != null && head != null && 2 * tail.count < tail.elements.length) {
+            if (tail.count + head.count <= head.elements.length) {
+                head.prepend(tail);
+                tail = tail.previous;
+            } else if (tail.count + head.count <= tail.elements.length) {
+                tail.append(head, head.count);
+                head = head.next;
+            } else {
+                // both hold more than a chunk between them, so both stay at least half full
+                tail.append(head, (tail.elements.length + 1) / 2 - tail.count);
+            }
+        }
+
+        if (head == null) {
+            tail.next = null;
+            last = tail;
+        } else {
+            head.previous = tail;
+            if (tail == null) {
+                first = head;
+            } else {
+                tail.next = head;
+            }
+            last = list.last;
+        }
+        size += list.size;
+        modifications++;
+
+        list.first = null;
+        list.last = null;
+        list.size = 0;
+        list.modifications++;
+    }
+
+    /**
+     * Removes the last element, if there is one.
+     */
+    public void remove() {
+
+        if (last == null) {
+            return;
+        }
+
+        last.elements[--last.count] = null;
+        if (last.count == 0) {
+            last = last.previous;
+            if (last == null) {
+                first = null;
+            } else {
+                last.next = null;
+            }
+        }
+        size--;
+        modifications++;
+    }
+
+    /**
+     * Returns the last element, or null if the list is empty.
+     */
+    @Nullable
+    public E get() {
+
+        return last == null ? null : cast(last.elements[last.count - 1]);
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    int chunkSize() {
+
+        return chunkSize;
+    }
+
+    int nodeCount() {
+
+        int nodes = 0;
+        for (Node node = first; node != null; node = node.next) {
+            nodes++;
+        }
+        return nodes;
+    }
+
+    @Override
+    @NotNull
+    public Iterator<E> iterator() {
+
+        return new Iterator<>() {
+
+            final int expectedModifications = modifications;
+            @Nullable
+            Node node = first;
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            @Nullable
+            public E next() {
+
+                if (modifications != expectedModifications) {
+                    throw new ConcurrentModificationException("The list was modified during iteration.");
+                }
+                if (node == null) {
+                    throw new NoSuchElementException("The iterator is exhausted, no more elements.");
+                }
+
+                final E element = cast(node.elements[index++]);
+                if (index == node.count) {
+                    node = node.next;
+                    index = 0;
+                }
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Walks each chunk as a plain array loop.
+     */
+    @Override
+    public void forEach(@NotNull final Consumer<? super E> action) {
+
+        Checks.notNull(action);
+
+        final int expectedModifications = modifications;
+        for (Node node = first; node != null; node = node.next) {
+            final Object[] elements = node.elements;
+            for (int i = 0, count = node.count; i < count; i++) {
+                action.accept(cast(elements[i]));
+            }
+            // checked once a chunk so an action that appends cannot keep the walk going
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("The list was modified during iteration.");
+            }
+        }
+    }
+
+    @Override
+    @NotNull
+    public Spliterator<E> spliterator() {
+
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder("[");
+        forEach(element -> builder.append(element).append("->"));
+        if (size > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+
+        return builder.append("]").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(@Nullable final Object element) {
+
+        return (E) element;
+    }
+
+    /**
+     * Holds its elements at [0, count) of the array. A node keeps the length of array of
+     * the list that created it, so a list may mix chunk sizes after a splice.
+     */
+    private static final class Node {
+
+        @NotNull
+        private final Object[] elements;
+        private int count;
+        @Nullable
+        private Node next;
+        @Nullable
+        private Node previous;
+
+        private Node(final int chunkSize, @Nullable final Node previous) {
+            this.elements = new Object[chunkSize];
+            this.count = 0;
+            this.next = null;
+            this.previous = previous;
+        }
+
+        /**
+         * Moves the first elements of the node to the end of this one.
+         */
+        private void append(@NotNull final Node from, final int moved) {
+
+            System.arraycopy(from.elements, 0, elements, count, moved);
+            count += moved;
+            System.arraycopy(from.elements, moved, from.elements, 0, from.count - moved);
+            Arrays.fill(from.elements, from.count - moved, from.count, null);
+            from.count -= moved;
+        }
+
+        /**
+         * Moves every element of the node, which is then discarded, in front of those of this one.
+         */
+        private void prepend(@NotNull final Node from) {
+
+            System.arraycopy(elements, 0, elements, from.count, count);
+            System.arraycopy(from.elements, 0, elements, 0, from.count);
+            count += from.count;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ArrayDequeTest {
+
+    @Test
+    void stackOperationsShouldWorkLikeLinkedList() {
+
+        final ArrayDeque<Equals<String>> subjectUnderTest = new ArrayDeque<>();
+
+        assertNull(subjectUnderTest.get());
+        subjectUnderTest.add(typeAsEquals("a"));
+        subjectUnderTest.add(typeAsEquals("b"));
+        assertEquals(typeAsEquals("b"), subjectUnderTest.get());
+        subjectUnderTest.remove();
+        assertEquals(typeAsEquals("a"), subjectUnderTest.get());
+        subjectUnderTest.remove();
+        assertNull(subjectUnderTest.get());
+
+        // popping an empty deque leaves it empty
+        subjectUnderTest.remove();
+        assertEquals(0, subjectUnderTest.size());
+        subjectUnderTest.add(typeAsEquals("c"));
+        assertEquals(1, subjectUnderTest.size());
+        assertEquals("[c]", subjectUnderTest.toString());
+
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.add(null));
+        assertThrows(IllegalArgumentException.class, () -> new ArrayDeque<>(0));
+    }
+
+    @Test
+    void bothEndsShouldMatchAReferenceDequeAcrossWrapsAndGrowth() {
+
+        final ArrayDeque<Pair<Integer, Integer>> subjectUnderTest = new ArrayDeque<>(2);
+        final java.util.ArrayDeque<Integer> expected = new java.util.ArrayDeque<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    subjectUnderTest.addFirst(new Pair<>(i, i));
+                    expected.addFirst(i);
+                }
+                case 1, 2 -> {
+                    subjectUnderTest.addLast(new Pair<>(i, i));
+                    expected.addLast(i);
+                }
+                case 3 -> {
+                    final Integer first = expected.pollFirst();
+                    assertEquals(first == null ? null : new Pair<>(first, first), subjectUnderTest.pollFirst());
+                }
+                default -> {
+                    final Integer last = expected.pollLast();
+                    assertEquals(last == null ? null : new Pair<>(last, last), subjectUnderTest.pollLast());
+                }
+            }
+            assertEquals(expected.size(), subjectUnderTest.size());
+        }
+
+        assertEquals(List.copyOf(expected), subjectUnderTest.stream().map(Pair::getFirst).collect(Collectors.toList()));
+        assertEquals(new Pair<>(expected.peekFirst(), expected.peekFirst()), subjectUnderTest.peekFirst());
+        assertEquals(new Pair<>(expected.peekLast(), expected.peekLast()), subjectUnderTest.peekLast());
+        assertEquals(1, Integer.bitCount(subjectUnderTest.capacity()));
+
+        subjectUnderTest.clear();
+        assertTrue(subjectUnderTest.isEmpty());
+        assertNull(subjectUnderTest.peekFirst());
+        assertNull(subjectUnderTest.pollLast());
+    }
+
+    @Test
+    void spliteratorShouldSplitWithExactSizes() {
+
+        final ArrayDeque<Pair<Integer, Integer>> subjectUnderTest = new ArrayDeque<>(8);
+        // start the run near the end of the array so it wraps
+        for (int i = 0; i < 6; i++) {
+            subjectUnderTest.addLast(new Pair<>(-1, -1));
+        }
+        for (int i = 0; i < 6; i++) {
+            subjectUnderTest.pollFirst();
+        }
+        for (int i = 0; i < 8; i++) {
+            subjectUnderTest.addLast(new Pair<>(i, i));
+        }
+
+        final Spliterator<Pair<Integer, Integer>> suffix = subjectUnderTest.spliterator();
+        final Spliterator<Pair<Integer, Integer>> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertEquals(4, prefix.getExactSizeIfKnown());
+        assertEquals(4, suffix.getExactSizeIfKnown());
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertTrue(suffix.tryAdvance(element -> assertEquals(new Pair<>(4, 4), element)));
+
+        assertEquals(28, subjectUnderTest.parallelStream().mapToInt(Pair::getFirst).sum());
+        assertEquals(List.of(0, 1, 2), subjectUnderTest.parallelStream().limit(3).map(Pair::getFirst).collect(Collectors.toList()));
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final ArrayDeque<Equals<String>> subjectUnderTest = new ArrayDeque<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertEquals(typeAsEquals("a"), iterator.next());
+        subjectUnderTest.addFirst(typeAsEquals("z"));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertThrows(ConcurrentModificationException.class, () -> subjectUnderTest.forEach(element -> subjectUnderTest.pollLast()));
+    }
+
+    @Test
+    void forEachShouldFailOnTheFirstChangeRatherThanPassNulls() {
+
+        final ArrayDeque<Equals<String>> subjectUnderTest = new ArrayDeque<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"), typeAsEquals("d"));
+
+        final List<Equals<String>> seen = new java.util.ArrayList<>();
+        assertThrows(ConcurrentModificationException.class, () -> subjectUnderTest.forEach(element -> {
+            seen.add(element);
+            subjectUnderTest.pollLast();
+        }));
+
+        assertEquals(List.of(typeAsEquals("a")), seen);
+    }
+}
@@ -0,0 +1,148 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ArrayListTest {
+
+    @Test
+    void addAndGetShouldKeepInsertionOrder() {
+
+        final ArrayList<Equals<String>> subjectUnderTest = new ArrayList<>();
+        assertEquals(0, subjectUnderTest.capacity());
+
+        for (int i = 0, c = 'a'; c <= 'z'; c++, i++) {
+            subjectUnderTest.add(typeAsEquals("" + (char) c));
+            assertEquals(i + 1, subjectUnderTest.size());
+            assertEquals(typeAsEquals("" + (char) c), subjectUnderTest.get(i));
+        }
+
+        assertEquals(typeAsEquals("a"), subjectUnderTest.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> subjectUnderTest.get(26));
+        assertThrows(IndexOutOfBoundsException.class, () -> subjectUnderTest.get(-1));
+    }
+
+    @Test
+    void setAndRemoveShouldShiftElements() {
+
+        final ArrayList<Pair<Integer, Integer>> subjectUnderTest = new ArrayList<>(2);
+        for (int i = 0; i < 5; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        assertEquals(new Pair<>(2, 2), subjectUnderTest.set(2, new Pair<>(-2, -2)));
+        assertEquals(new Pair<>(0, 0), subjectUnderTest.remove(0));
+        subjectUnderTest.add(0, new Pair<>(9, 9));
+        subjectUnderTest.add(subjectUnderTest.size(), new Pair<>(10, 10));
+        subjectUnderTest.add(null);
+
+        assertEquals("[(9, 9), (1, 1), (-2, -2), (3, 3), (4, 4), (10, 10), null]", subjectUnderTest.toString());
+        assertEquals(2, subjectUnderTest.indexOf(new Pair<>(-2, -2)));
+        assertEquals(6, subjectUnderTest.indexOf(null));
+        assertFalse(subjectUnderTest.contains(new Pair<>(2, 2)));
+        assertThrows(IndexOutOfBoundsException.class, () -> subjectUnderTest.add(8, null));
+    }
+
+    @Test
+    void addAllShouldAppendInOrder() {
+
+        final ArrayList<Equals<String>> subjectUnderTest = new ArrayList<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final ArrayList<Equals<String>> other = new ArrayList<>();
+        other.addAll(typeAsEquals("c"), typeAsEquals("d"), typeAsEquals("e"));
+        subjectUnderTest.addAll(other);
+        subjectUnderTest.addAll(subjectUnderTest);
+
+        assertEquals("[a, b, c, d, e, a, b, c, d, e]", subjectUnderTest.toString());
+        assertEquals(3, other.size());
+    }
+
+    @Test
+    void ensureCapacityAndTrimToSizeShouldResizeTheArray() {
+
+        final ArrayList<Equals<String>> subjectUnderTest = new ArrayList<>();
+
+        subjectUnderTest.ensureCapacity(100);
+        assertEquals(100, subjectUnderTest.capacity());
+        subjectUnderTest.ensureCapacity(50);
+        assertEquals(100, subjectUnderTest.capacity());
+
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+        subjectUnderTest.trimToSize();
+        assertEquals(2, subjectUnderTest.capacity());
+
+        subjectUnderTest.add(typeAsEquals("c"));
+        assertEquals(3, subjectUnderTest.capacity());
+        assertEquals("[a, b, c]", subjectUnderTest.toString());
+        assertThrows(IllegalArgumentException.class, () -> new ArrayList<Equals<String>>(-1));
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final ArrayList<Equals<String>> subjectUnderTest = new ArrayList<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.add(typeAsEquals("c"));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        final Iterator<Equals<String>> exhausted = new ArrayList<Equals<String>>().iterator();
+        assertFalse(exhausted.hasNext());
+        assertThrows(NoSuchElementException.class, exhausted::next);
+    }
+
+    @Test
+    void spliteratorShouldSplitIntoSizedHalves() {
+
+        final ArrayList<Pair<Integer, Integer>> subjectUnderTest = new ArrayList<>();
+        for (int i = 0; i < 1_001; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        final Spliterator<Pair<Integer, Integer>> suffix = subjectUnderTest.spliterator();
+        final Spliterator<Pair<Integer, Integer>> prefix = suffix.trySplit();
+
+        assertNotNull(prefix);
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertTrue(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertEquals(500, prefix.getExactSizeIfKnown());
+        assertEquals(501, suffix.getExactSizeIfKnown());
+        assertEquals(
+                500_500L,
+                subjectUnderTest.parallelStream().mapToLong(Pair::getFirst).sum()
+        );
+        assertEquals(
+                List.of(0, 1, 2),
+                subjectUnderTest.parallelStream().limit(3).map(Pair::getFirst).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void emptyListShouldHaveNoElements() {
+
+        final ArrayList<Equals<String>> subjectUnderTest = new ArrayList<>();
+
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals("[]", subjectUnderTest.toString());
+        assertNull(subjectUnderTest.spliterator().trySplit());
+        assertEquals(0, subjectUnderTest.stream().count());
+    }
+}
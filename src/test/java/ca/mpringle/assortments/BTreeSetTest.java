@@ -0,0 +1,195 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.constraints.NotNull;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class BTreeSetTest {
+
+    @Test
+    void addAndRemoveShouldMatchTreeSet() {
+
+        final BTreeSet<Timestamp> subjectUnderTest = new BTreeSet<>(BTreeSet.MINIMUM_FANOUT);
+        final TreeSet<Integer> expected = new TreeSet<>();
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            final int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), subjectUnderTest.remove(new Timestamp(value)));
+            } else {
+                subjectUnderTest.add(new Timestamp(value));
+                expected.add(value);
+            }
+            assertEquals(expected.size(), subjectUnderTest.size());
+        }
+
+        assertEquals(List.copyOf(expected), values(subjectUnderTest.iterator()));
+        for (int value = -1; value <= 2_000; value++) {
+            assertEquals(expected.contains(value), subjectUnderTest.contains(new Timestamp(value)));
+        }
+
+        for (final Integer value : List.copyOf(expected)) {
+            assertTrue(subjectUnderTest.remove(new Timestamp(value)));
+        }
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals(1, subjectUnderTest.height());
+        assertFalse(subjectUnderTest.remove(null));
+        assertFalse(subjectUnderTest.contains(null));
+    }
+
+    @Test
+    void floorAndCeilingShouldFindTheNearestElements() {
+
+        final BTreeSet<Timestamp> subjectUnderTest = new BTreeSet<>(BTreeSet.MINIMUM_FANOUT);
+        assertNull(subjectUnderTest.floor(new Timestamp(0)));
+        assertNull(subjectUnderTest.ceiling(new Timestamp(0)));
+
+        for (int i = 0; i < 1_000; i += 10) {
+            subjectUnderTest.add(new Timestamp(i));
+        }
+
+        for (int i = 0; i < 990; i++) {
+            assertEquals(new Timestamp(i / 10 * 10), subjectUnderTest.floor(new Timestamp(i)));
+            assertEquals(new Timestamp((i + 9) / 10 * 10), subjectUnderTest.ceiling(new Timestamp(i)));
+        }
+        assertNull(subjectUnderTest.floor(new Timestamp(-1)));
+        assertNull(subjectUnderTest.ceiling(new Timestamp(991)));
+        assertEquals(new Timestamp(990), subjectUnderTest.floor(new Timestamp(5_000)));
+        assertEquals(new Timestamp(0), subjectUnderTest.first());
+        assertEquals(new Timestamp(990), subjectUnderTest.last());
+    }
+
+    @Test
+    void subSetShouldIterateTheHalfOpenRange() {
+
+        final BTreeSet<Timestamp> subjectUnderTest = new BTreeSet<>(8);
+        for (int i = 0; i < 1_000; i += 2) {
+            subjectUnderTest.add(new Timestamp(i));
+        }
+
+        final AbstractAssortment<Timestamp> range = subjectUnderTest.subSet(new Timestamp(101), new Timestamp(120));
+        assertEquals(List.of(102, 104, 106, 108, 110, 112, 114, 116, 118), values(range.iterator()));
+        assertEquals(9, range.size());
+        assertTrue(range.contains(new Timestamp(102)));
+        assertFalse(range.contains(new Timestamp(120)));
+        assertFalse(range.contains(new Timestamp(100)));
+        assertEquals("{102, 104, 106, 108, 110, 112, 114, 116, 118}", range.toString());
+
+        // the view follows changes to the set
+        subjectUnderTest.add(new Timestamp(103));
+        assertEquals(10, range.size());
+
+        assertTrue(subjectUnderTest.subSet(new Timestamp(5_000), new Timestamp(6_000)).isEmpty());
+        assertTrue(subjectUnderTest.subSet(new Timestamp(10), new Timestamp(10)).isEmpty());
+        assertEquals(501, subjectUnderTest.subSet(new Timestamp(-1), new Timestamp(999)).stream().count());
+        assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.subSet(new Timestamp(2), new Timestamp(1)));
+    }
+
+    @Test
+    void fromSortedShouldBuildAValidTree() {
+
+        for (final int size : new int[]{0, 1, 4, 5, 17, 64, 65, 1_000, 4_097}) {
+            final List<Timestamp> sorted = IntStream.range(0, size).mapToObj(Timestamp::new).collect(Collectors.toList());
+            final BTreeSet<Timestamp> subjectUnderTest = BTreeSet.fromSorted(BTreeSet.MINIMUM_FANOUT, sorted);
+
+            assertEquals(size, subjectUnderTest.size());
+            assertEquals(IntStream.range(0, size).boxed().collect(Collectors.toList()), values(subjectUnderTest.iterator()));
+
+            // every element can still be found, and the tree stays balanced as it changes
+            for (int i = 0; i < size; i++) {
+                assertTrue(subjectUnderTest.contains(new Timestamp(i)));
+                subjectUnderTest.add(new Timestamp(size + i));
+            }
+            for (int i = 0; i < 2 * size; i += 2) {
+                assertTrue(subjectUnderTest.remove(new Timestamp(i)));
+            }
+            assertEquals(size, subjectUnderTest.size());
+        }
+
+        final BTreeSet<Timestamp> built = BTreeSet.fromSorted(IntStream.range(0, 100_000).mapToObj(Timestamp::new).collect(Collectors.toList()));
+        assertEquals(BTreeSet.DEFAULT_FANOUT, built.fanout());
+        assertEquals(3, built.height());
+        assertEquals(new Timestamp(99_999), built.last());
+
+        assertThrows(IllegalArgumentException.class, () -> BTreeSet.fromSorted(List.of(new Timestamp(1), new Timestamp(1))));
+        assertThrows(IllegalArgumentException.class, () -> BTreeSet.fromSorted(List.of(new Timestamp(2), new Timestamp(1))));
+        assertThrows(IllegalArgumentException.class, () -> new BTreeSet<Timestamp>(BTreeSet.MINIMUM_FANOUT - 1));
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final BTreeSet<Timestamp> subjectUnderTest = new BTreeSet<>();
+        subjectUnderTest.addAll(new Timestamp(2), new Timestamp(1));
+
+        final Iterator<Timestamp> iterator = subjectUnderTest.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.add(new Timestamp(3));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        final BTreeSet<Timestamp> empty = new BTreeSet<>();
+        assertFalse(empty.iterator().hasNext());
+        assertThrows(NoSuchElementException.class, () -> empty.iterator().next());
+        assertThrows(NoSuchElementException.class, empty::first);
+        assertThrows(NoSuchElementException.class, empty::last);
+        assertEquals("{}", empty.toString());
+    }
+
+    @NotNull
+    private static List<Integer> values(@NotNull final Iterator<Timestamp> iterator) {
+
+        final List<Integer> values = new java.util.ArrayList<>();
+        iterator.forEachRemaining(timestamp -> values.add(timestamp.value));
+        return values;
+    }
+
+    private static final class Timestamp extends AbstractEquals<Timestamp> implements Compares<Timestamp> {
+
+        private final int value;
+
+        private Timestamp(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(@NotNull final Timestamp instance) {
+
+            return Integer.compare(value, instance.value);
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final Timestamp instance) {
+
+            return instance != null && compareTo(instance) == 0;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return value;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ConsListTest {
+
+    @Test
+    void prependShouldShareTheTailBetweenVersions() {
+
+        final ConsList<Equals<String>> shared = ConsList.of(typeAsEquals("c"), typeAsEquals("d"));
+        final ConsList<Equals<String>> first = shared.prepend(typeAsEquals("a"));
+        final ConsList<Equals<String>> second = shared.prepend(typeAsEquals("b"));
+
+        assertEquals("[a, c, d]", first.toString());
+        assertEquals("[b, c, d]", second.toString());
+        assertEquals("[c, d]", shared.toString());
+        assertSame(shared, first.tail());
+        assertSame(shared, second.tail());
+        assertEquals(typeAsEquals("a"), first.head());
+        assertEquals(3, first.size());
+
+        final ConsList<Equals<String>> withNull = first.prepend(null);
+        assertNull(withNull.head());
+        assertEquals(4, withNull.size());
+    }
+
+    @Test
+    void emptyListShouldHaveNoHeadOrTail() {
+
+        final ConsList<Equals<String>> subjectUnderTest = ConsList.empty();
+
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals("[]", subjectUnderTest.toString());
+        assertThrows(NoSuchElementException.class, subjectUnderTest::head);
+        assertThrows(NoSuchElementException.class, subjectUnderTest::tail);
+        assertSame(subjectUnderTest, ConsList.of());
+        assertTrue(subjectUnderTest.reverse().isEmpty());
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void reverseAndFromArrayShouldKeepOrder() {
+
+        @SuppressWarnings({"unchecked", "rawtypes"}) final Equals<String>[] elements = new Equals[]{typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c")};
+        final ConsList<Equals<String>> subjectUnderTest = ConsList.fromArray(elements);
+
+        assertEquals(List.of("a", "b", "c"), subjectUnderTest.stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals("[c, b, a]", subjectUnderTest.reverse().toString());
+        assertEquals("[a, b, c]", subjectUnderTest.reverse().reverse().toString());
+        assertTrue(subjectUnderTest.contains(typeAsEquals("b")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("d")));
+    }
+
+    @Test
+    void spliteratorShouldSplitWithExactSizes() {
+
+        final Pair<Integer, Integer>[] elements = newArray(100_000);
+        long expectedSum = 0;
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new Pair<>(i, i);
+            expectedSum += i;
+        }
+        final ConsList<Pair<Integer, Integer>> subjectUnderTest = ConsList.fromArray(elements);
+
+        final Spliterator<Pair<Integer, Integer>> suffix = subjectUnderTest.spliterator();
+        final Spliterator<Pair<Integer, Integer>> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertEquals(50_000, prefix.getExactSizeIfKnown());
+        assertEquals(50_000, suffix.getExactSizeIfKnown());
+        assertTrue(prefix.tryAdvance(element -> assertEquals(new Pair<>(0, 0), element)));
+        assertTrue(suffix.tryAdvance(element -> assertEquals(new Pair<>(50_000, 50_000), element)));
+        assertTrue(suffix.hasCharacteristics(Spliterator.SUBSIZED | Spliterator.IMMUTABLE));
+
+        assertEquals(expectedSum, subjectUnderTest.parallelStream().mapToLong(Pair::getFirst).sum());
+        assertEquals(List.of(0, 1, 2), subjectUnderTest.parallelStream().limit(3).map(Pair::getFirst).collect(Collectors.toList()));
+        assertNull(ConsList.of(new Pair<>(1, 1)).spliterator().trySplit());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Pair<Integer, Integer>[] newArray(final int length) {
+
+        return new Pair[length];
+    }
+}
@@ -0,0 +1,146 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class CopyOnWriteHashSetTest {
+
+    @Test
+    void mutateShouldApplyABatchOfChanges() {
+
+        final CopyOnWriteHashSet<Equals<String>> subjectUnderTest = new CopyOnWriteHashSet<>();
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals("{}", subjectUnderTest.toString());
+
+        subjectUnderTest.mutate(builder -> {
+            builder.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+            builder.add(typeAsEquals("a"));
+            assertTrue(builder.remove(typeAsEquals("c")));
+            assertFalse(builder.remove(typeAsEquals("d")));
+            assertEquals(2, builder.size());
+            // readers do not see the batch until it is published
+            assertTrue(subjectUnderTest.isEmpty());
+        });
+
+        assertEquals(2, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.contains(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("c")));
+        assertFalse(subjectUnderTest.contains(null));
+
+        subjectUnderTest.add(typeAsEquals("d"));
+        assertTrue(subjectUnderTest.remove(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.remove(typeAsEquals("a")));
+        assertEquals(Set.of("b", "d"), subjectUnderTest.stream().map(Object::toString).collect(Collectors.toSet()));
+
+        subjectUnderTest.mutate(CopyOnWriteHashSet.Builder::clear);
+        assertTrue(subjectUnderTest.isEmpty());
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.add(null));
+    }
+
+    @Test
+    void aFailedMutationShouldChangeNothing() {
+
+        final CopyOnWriteHashSet<Equals<String>> subjectUnderTest = new CopyOnWriteHashSet<>();
+        subjectUnderTest.add(typeAsEquals("a"));
+
+        assertThrows(IllegalStateException.class, () -> subjectUnderTest.mutate(builder -> {
+            builder.remove(typeAsEquals("a"));
+            builder.add(typeAsEquals("b"));
+            throw new IllegalStateException("abandoned");
+        }));
+        assertEquals("{a}", subjectUnderTest.toString());
+
+        final AtomicReference<CopyOnWriteHashSet.Builder<Equals<String>>> escaped = new AtomicReference<>();
+        subjectUnderTest.mutate(escaped::set);
+        assertThrows(IllegalStateException.class, () -> escaped.get().add(typeAsEquals("c")));
+    }
+
+    @Test
+    void changesFromInsideMutateShouldBeRejected() {
+
+        final CopyOnWriteHashSet<Equals<String>> subjectUnderTest = new CopyOnWriteHashSet<>();
+
+        // publishing b first would be lost when the outer builder is published
+        assertThrows(IllegalStateException.class, () -> subjectUnderTest.mutate(builder -> {
+            builder.add(typeAsEquals("a"));
+            subjectUnderTest.add(typeAsEquals("b"));
+        }));
+        assertTrue(subjectUnderTest.isEmpty());
+
+        // the set is usable again once the rejected mutation unwinds
+        subjectUnderTest.mutate(builder -> builder.add(typeAsEquals("c")));
+        assertEquals("{c}", subjectUnderTest.toString());
+    }
+
+    @Test
+    void iteratorsShouldSeeTheSetAsItWasWhenTheyStarted() {
+
+        final CopyOnWriteHashSet<Equals<String>> subjectUnderTest = new CopyOnWriteHashSet<>();
+        subjectUnderTest.mutate(builder -> builder.addAll(typeAsEquals("a"), typeAsEquals("b")));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        iterator.next();
+        subjectUnderTest.mutate(builder -> builder.addAll(typeAsEquals("c"), typeAsEquals("d")));
+        iterator.next();
+
+        assertFalse(iterator.hasNext());
+        assertEquals(4, subjectUnderTest.stream().count());
+    }
+
+    @Test
+    void readersShouldNeverSeeHalfABatch() throws InterruptedException {
+
+        final CopyOnWriteHashSet<Pair<Integer, Integer>> subjectUnderTest = new CopyOnWriteHashSet<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        // every batch adds i and -i together, so a reader that sees one must see the other
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!done.get()) {
+                    for (int i = 1; i <= 200; i++) {
+                        final boolean positive = subjectUnderTest.contains(new Pair<>(i, i));
+                        final boolean negative = subjectUnderTest.contains(new Pair<>(-i, -i));
+                        if (positive && !negative) {
+                            failure.set("saw " + i + " without " + -i);
+                        }
+                    }
+                    if (subjectUnderTest.size() % 2 != 0) {
+                        failure.set("saw an odd size");
+                    }
+                }
+            });
+            readers[r].start();
+        }
+
+        for (int i = 1; i <= 200; i++) {
+            final int value = i;
+            // the negative element goes in first in the batch, the positive one last
+            subjectUnderTest.mutate(builder -> {
+                builder.add(new Pair<>(-value, -value));
+                builder.add(new Pair<>(value, value));
+            });
+        }
+        done.set(true);
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(400, subjectUnderTest.size());
+    }
+}
@@ -0,0 +1,139 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.constraints.NotNull;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class DaryHeapTest {
+
+    @Test
+    void offerAndPollShouldMatchPriorityQueue() {
+
+        final Random random = new Random(42);
+        for (final int arity : new int[]{2, 3, 4, 8}) {
+            final DaryHeap<Priority> subjectUnderTest = new DaryHeap<>(arity);
+            final PriorityQueue<Integer> expected = new PriorityQueue<>();
+
+            for (int i = 0; i < 10_000; i++) {
+                if (random.nextInt(3) == 0) {
+                    assertEquals(valueOf(expected.poll()), subjectUnderTest.poll());
+                } else {
+                    final int value = random.nextInt(1_000);
+                    subjectUnderTest.offer(new Priority(value));
+                    expected.offer(value);
+                }
+                assertEquals(expected.size(), subjectUnderTest.size());
+                assertEquals(valueOf(expected.peek()), subjectUnderTest.peek());
+            }
+
+            while (!expected.isEmpty()) {
+                assertEquals(valueOf(expected.poll()), subjectUnderTest.poll());
+            }
+            assertNull(subjectUnderTest.poll());
+            assertNull(subjectUnderTest.peek());
+            assertEquals(arity, subjectUnderTest.arity());
+        }
+    }
+
+    @Test
+    void heapifyShouldBuildAValidHeap() {
+
+        final Random random = new Random(7);
+        for (final int size : new int[]{0, 1, 2, 5, 17, 1_000}) {
+            final Priority[] priorities = new Priority[size];
+            for (int i = 0; i < size; i++) {
+                priorities[i] = new Priority(random.nextInt(100));
+            }
+
+            final DaryHeap<Priority> subjectUnderTest = DaryHeap.heapify(3, priorities);
+            assertEquals(size, subjectUnderTest.size());
+
+            int previous = Integer.MIN_VALUE;
+            for (Priority polled = subjectUnderTest.poll(); polled != null; polled = subjectUnderTest.poll()) {
+                assertTrue(polled.value >= previous);
+                previous = polled.value;
+            }
+        }
+
+        assertEquals("[1, 3, 2]", DaryHeap.heapify(new Priority(3), new Priority(1), new Priority(2)).toString());
+        assertThrows(NullPointerException.class, () -> DaryHeap.heapify(new Priority(1), null));
+        assertThrows(IllegalArgumentException.class, () -> new DaryHeap<Priority>(1));
+    }
+
+    @Test
+    void clearShouldEmptyTheHeap() {
+
+        final DaryHeap<Priority> subjectUnderTest = new DaryHeap<>();
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.offer(new Priority(i));
+        }
+
+        subjectUnderTest.clear();
+
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals("[]", subjectUnderTest.toString());
+        subjectUnderTest.offer(new Priority(5));
+        assertEquals(new Priority(5), subjectUnderTest.poll());
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final DaryHeap<Priority> subjectUnderTest = DaryHeap.heapify(new Priority(1), new Priority(2));
+
+        final Iterator<Priority> iterator = subjectUnderTest.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.offer(new Priority(0));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    @Nullable
+    private static Priority valueOf(@Nullable final Integer value) {
+
+        return value == null ? null : new Priority(value);
+    }
+
+    private static final class Priority extends AbstractEquals<Priority> implements Compares<Priority> {
+
+        private final int value;
+
+        private Priority(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(@NotNull final Priority instance) {
+
+            return Integer.compare(value, instance.value);
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final Priority instance) {
+
+            return instance != null && compareTo(instance) == 0;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return value;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+}
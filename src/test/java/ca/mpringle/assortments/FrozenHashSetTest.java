@@ -0,0 +1,88 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FrozenHashSetTest {
+
+    @Test
+    void freezeShouldFindEveryElementAndNothingElse() {
+
+        final HashSet<Pair<Integer, Integer>> hashSet = new HashSet<>();
+        final Random random = new Random(42);
+        final java.util.HashSet<Integer> expected = new java.util.HashSet<>();
+        while (expected.size() < 100_000) {
+            final int value = random.nextInt();
+            expected.add(value);
+            hashSet.add(new Pair<>(value, -value));
+        }
+
+        final FrozenHashSet<Pair<Integer, Integer>> subjectUnderTest = hashSet.freeze();
+
+        assertEquals(100_000, subjectUnderTest.size());
+        for (final int value : expected) {
+            assertTrue(subjectUnderTest.contains(new Pair<>(value, -value)));
+            assertFalse(subjectUnderTest.contains(new Pair<>(value, value + 1)));
+        }
+        assertEquals(expected, subjectUnderTest.stream().map(Pair::getFirst).collect(Collectors.toSet()));
+        assertEquals(hashSet, subjectUnderTest);
+
+        final double bitsPerElement = (double) subjectUnderTest.indexBits() / subjectUnderTest.size();
+        assertTrue(bitsPerElement < 3.5, "index bits per element " + bitsPerElement);
+    }
+
+    @Test
+    void elementsWithEqualHashesShouldShareASlot() {
+
+        // Objects.hash(0, 31) == Objects.hash(1, 0) == Objects.hash(2, -31)
+        final HashSet<Pair<Integer, Integer>> hashSet = new HashSet<>();
+        hashSet.addAll(new Pair<>(0, 31), new Pair<>(1, 0), new Pair<>(2, -31), new Pair<>(5, 5));
+
+        final FrozenHashSet<Pair<Integer, Integer>> subjectUnderTest = hashSet.freeze();
+
+        assertEquals(4, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.contains(new Pair<>(0, 31)));
+        assertTrue(subjectUnderTest.contains(new Pair<>(1, 0)));
+        assertTrue(subjectUnderTest.contains(new Pair<>(2, -31)));
+        assertTrue(subjectUnderTest.contains(new Pair<>(5, 5)));
+        assertFalse(subjectUnderTest.contains(new Pair<>(3, -62)));
+        assertEquals(4, subjectUnderTest.stream().count());
+    }
+
+    @Test
+    void freezeShouldCopyTheSet() {
+
+        final HashSet<Equals<String>> hashSet = new HashSet<>();
+        hashSet.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final FrozenHashSet<Equals<String>> subjectUnderTest = hashSet.freeze();
+        hashSet.add(typeAsEquals("c"));
+        hashSet.remove(typeAsEquals("a"));
+
+        assertEquals(Set.of("a", "b"), subjectUnderTest.stream().map(Object::toString).collect(Collectors.toSet()));
+        assertTrue(subjectUnderTest.contains(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("c")));
+        assertFalse(subjectUnderTest.contains(null));
+
+        final FrozenHashSet<Equals<String>> empty = new HashSet<Equals<String>>().freeze();
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.contains(typeAsEquals("a")));
+        assertEquals("{}", empty.toString());
+
+        final Iterator<Equals<String>> iterator = empty.iterator();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
@@ -0,0 +1,185 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HashMapTest {
+
+    @Test
+    void putShouldReplaceAndReturnPreviousValue() {
+
+        final HashMap<Equals<String>, Integer> subjectUnderTest = new HashMap<>();
+
+        for (int i = 1, c = 'a'; c <= 'z'; c++, i++) {
+            final Equals<String> key = typeAsEquals("" + (char) c);
+            assertNull(subjectUnderTest.put(key, c));
+            assertEquals(c, subjectUnderTest.put(key, c + 1));
+
+            assertEquals(i, subjectUnderTest.size());
+            assertEquals(c + 1, subjectUnderTest.get(key));
+        }
+        assertNull(subjectUnderTest.get(typeAsEquals("A")));
+        assertNull(subjectUnderTest.get(null));
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.put(null, 1));
+    }
+
+    @Test
+    void nullValuesShouldBeMapped() {
+
+        final HashMap<Equals<String>, Integer> subjectUnderTest = new HashMap<>();
+        subjectUnderTest.put(typeAsEquals("a"), null);
+
+        assertTrue(subjectUnderTest.containsKey(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.containsKey(typeAsEquals("b")));
+        assertNull(subjectUnderTest.getOrDefault(typeAsEquals("a"), 1));
+        assertEquals(1, subjectUnderTest.getOrDefault(typeAsEquals("b"), 1));
+    }
+
+    @Test
+    void removeShouldKeepCollidingKeysReachable() {
+
+        final HashMap<Pair<Integer, Integer>, Integer> subjectUnderTest = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.put(new Pair<>(i % 7, i), i);
+        }
+
+        for (int i = 0; i < 1_000; i += 2) {
+            assertEquals(i, subjectUnderTest.remove(new Pair<>(i % 7, i)));
+            assertNull(subjectUnderTest.remove(new Pair<>(i % 7, i)));
+        }
+
+        assertEquals(500, subjectUnderTest.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 0 ? null : i, subjectUnderTest.get(new Pair<>(i % 7, i)));
+        }
+    }
+
+    @Test
+    void removeShouldShrinkTheTable() {
+
+        final HashMap<Pair<Integer, Integer>, Integer> subjectUnderTest = new HashMap<>(8);
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.put(new Pair<>(i, i), i);
+        }
+        final int grownCapacity = subjectUnderTest.capacity();
+
+        for (int i = 10; i < 1_000; i++) {
+            subjectUnderTest.remove(new Pair<>(i, i));
+        }
+
+        assertTrue(subjectUnderTest.capacity() < grownCapacity);
+        assertTrue(subjectUnderTest.capacity() >= 8);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, subjectUnderTest.get(new Pair<>(i, i)));
+        }
+    }
+
+    @Test
+    void computeIfAbsentShouldOnlyComputeMissingValues() {
+
+        final HashMap<Equals<String>, Integer> subjectUnderTest = new HashMap<>();
+
+        assertEquals(1, subjectUnderTest.computeIfAbsent(typeAsEquals("a"), k -> 1));
+        assertEquals(1, subjectUnderTest.computeIfAbsent(typeAsEquals("a"), k -> 2));
+        assertNull(subjectUnderTest.computeIfAbsent(typeAsEquals("b"), k -> null));
+        assertFalse(subjectUnderTest.containsKey(typeAsEquals("b")));
+
+        subjectUnderTest.put(typeAsEquals("c"), null);
+        assertEquals(3, subjectUnderTest.computeIfAbsent(typeAsEquals("c"), k -> 3));
+        assertEquals(2, subjectUnderTest.size());
+    }
+
+    @Test
+    void computeIfAbsentShouldRejectModifyingFunction() {
+
+        final HashMap<Equals<String>, Integer> subjectUnderTest = new HashMap<>();
+
+        assertThrows(
+                ConcurrentModificationException.class,
+                () -> subjectUnderTest.computeIfAbsent(typeAsEquals("a"), k -> subjectUnderTest.put(typeAsEquals("b"), 1))
+        );
+    }
+
+    @Test
+    void cursorShouldVisitEveryEntry() {
+
+        final HashMap<Pair<Integer, Integer>, Integer> subjectUnderTest = HashMap.withExpectedSize(100);
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.put(new Pair<>(i, i), i);
+        }
+
+        long sum = 0;
+        final HashMap<Pair<Integer, Integer>, Integer>.Cursor cursor = subjectUnderTest.cursor();
+        while (cursor.advance()) {
+            assertEquals(cursor.key().getFirst(), cursor.value());
+            sum += cursor.setValue(cursor.value() * 2);
+        }
+
+        assertEquals(4950, sum);
+        assertFalse(cursor.advance());
+        assertThrows(NoSuchElementException.class, cursor::key);
+        assertEquals(198, subjectUnderTest.get(new Pair<>(99, 99)));
+    }
+
+    @Test
+    void cursorShouldFailFast() {
+
+        final HashMap<Equals<String>, Integer> subjectUnderTest = new HashMap<>();
+        subjectUnderTest.put(typeAsEquals("a"), 1);
+        subjectUnderTest.put(typeAsEquals("b"), 2);
+
+        final HashMap<Equals<String>, Integer>.Cursor cursor = subjectUnderTest.cursor();
+        assertThrows(NoSuchElementException.class, cursor::value);
+        assertTrue(cursor.advance());
+        subjectUnderTest.put(typeAsEquals("c"), 3);
+
+        assertThrows(ConcurrentModificationException.class, cursor::advance);
+        assertThrows(
+                ConcurrentModificationException.class,
+                () -> subjectUnderTest.forEach((k, v) -> subjectUnderTest.remove(k))
+        );
+    }
+
+    @Test
+    void equalsAndHashCodeShouldCompareEntries() {
+
+        final HashMap<Equals<String>, Integer> a = new HashMap<>();
+        final HashMap<Equals<String>, Integer> b = new HashMap<>(64);
+        final java.util.HashMap<Equals<String>, Integer> expected = new java.util.HashMap<>();
+        for (int c = 'a'; c <= 'z'; c++) {
+            a.put(typeAsEquals("" + (char) c), c);
+            b.put(typeAsEquals("" + (char) ('a' + 'z' - c)), 'a' + 'z' - c);
+            expected.put(typeAsEquals("" + (char) c), c);
+        }
+
+        assertEquals(a, b);
+        assertEquals(expected.hashCode(), a.hashCode());
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.put(typeAsEquals("a"), 0);
+        assertNotEquals(a, b);
+        assertEquals(26, b.size());
+    }
+
+    @Test
+    void constructorShouldValidateArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> new HashMap<Equals<String>, Integer>(0));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new HashMap<Equals<String>, Integer>(4, ResizePolicy.defaults().withIncrementalResize(true))
+        );
+        assertEquals("{}", new HashMap<Equals<String>, Integer>().toString());
+    }
+}
@@ -0,0 +1,133 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HashMultimapTest {
+
+    @Test
+    void putAndGetShouldGroupValuesInInsertionOrder() {
+
+        final HashMultimap<Equals<String>, Equals<String>> subjectUnderTest = new HashMultimap<>();
+        subjectUnderTest.put(typeAsEquals("fruit"), typeAsEquals("apple"));
+        subjectUnderTest.put(typeAsEquals("veg"), typeAsEquals("leek"));
+        for (final String fruit : List.of("pear", "fig", "plum", "kiwi", "apple")) {
+            subjectUnderTest.put(typeAsEquals("fruit"), typeAsEquals(fruit));
+        }
+
+        assertEquals("[apple, pear, fig, plum, kiwi, apple]", subjectUnderTest.get(typeAsEquals("fruit")).toString());
+        assertEquals("[leek]", subjectUnderTest.get(typeAsEquals("veg")).toString());
+        assertEquals("[]", subjectUnderTest.get(typeAsEquals("meat")).toString());
+        assertEquals(7, subjectUnderTest.size());
+        assertEquals(2, subjectUnderTest.keyCount());
+        assertTrue(subjectUnderTest.containsKey(typeAsEquals("veg")));
+        assertFalse(subjectUnderTest.containsKey(typeAsEquals("meat")));
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.put(typeAsEquals("veg"), null));
+    }
+
+    @Test
+    void getShouldReturnALiveView() {
+
+        final HashMultimap<Equals<String>, Equals<String>> subjectUnderTest = new HashMultimap<>();
+        final AbstractAssortment<Equals<String>> view = subjectUnderTest.get(typeAsEquals("k"));
+        assertTrue(view.isEmpty());
+
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("a"));
+        assertEquals(1, view.size());
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("b"));
+        assertEquals(2, view.size());
+        assertTrue(view.contains(typeAsEquals("b")));
+        assertFalse(view.contains(typeAsEquals("c")));
+        assertEquals(List.of("a", "b"), view.stream().map(Object::toString).collect(Collectors.toList()));
+
+        // growing the table moves the slot, which the view finds again
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.put(typeAsEquals("other" + i), typeAsEquals("x"));
+        }
+        assertEquals("[a, b]", view.toString());
+
+        final Iterator<Equals<String>> iterator = view.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("c"));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    @Test
+    void removeShouldMoveASingleRemainingValueBackInline() {
+
+        final HashMultimap<Equals<String>, Equals<String>> subjectUnderTest = new HashMultimap<>();
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("a"));
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("b"));
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("a"));
+
+        assertTrue(subjectUnderTest.remove(typeAsEquals("k"), typeAsEquals("a")));
+        assertEquals("[b, a]", subjectUnderTest.get(typeAsEquals("k")).toString());
+        assertFalse(subjectUnderTest.remove(typeAsEquals("k"), typeAsEquals("c")));
+        assertTrue(subjectUnderTest.remove(typeAsEquals("k"), typeAsEquals("b")));
+        assertEquals("{k=[a]}", subjectUnderTest.toString());
+
+        subjectUnderTest.put(typeAsEquals("k"), typeAsEquals("d"));
+        assertEquals("{k=[a, d]}", subjectUnderTest.toString());
+        assertFalse(subjectUnderTest.remove(null, typeAsEquals("a")));
+
+        assertEquals(2, subjectUnderTest.removeAll(typeAsEquals("k")));
+        assertEquals(0, subjectUnderTest.removeAll(typeAsEquals("k")));
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals(0, subjectUnderTest.keyCount());
+    }
+
+    @Test
+    void putAllShouldGroupAStreamByKey() {
+
+        final HashMultimap<Pair<Integer, Integer>, Pair<Integer, Integer>> subjectUnderTest = new HashMultimap<>();
+
+        subjectUnderTest.putAll(IntStream.range(0, 10_000).mapToObj(i -> new Pair<>(i, i)), value -> new Pair<>(value.getFirst() % 7, 0));
+
+        assertEquals(10_000, subjectUnderTest.size());
+        assertEquals(7, subjectUnderTest.keyCount());
+        assertEquals(1_429, subjectUnderTest.get(new Pair<>(0, 0)).size());
+        assertEquals(new Pair<>(6, 6), subjectUnderTest.get(new Pair<>(6, 0)).iterator().next());
+
+        final long[] sum = new long[1];
+        subjectUnderTest.forEach((key, value) -> sum[0] += value.getFirst());
+        assertEquals(49_995_000L, sum[0]);
+
+        for (int key = 0; key < 7; key++) {
+            subjectUnderTest.removeAll(new Pair<>(key, 0));
+        }
+        assertEquals(new HashMultimap<>().capacity(), subjectUnderTest.capacity());
+    }
+
+    @Test
+    void multimapsShouldBeEqualWhenTheirGroupsAre() {
+
+        final HashMultimap<Equals<String>, Equals<String>> first = new HashMultimap<>();
+        first.putAll(Stream.of(typeAsEquals("a1"), typeAsEquals("b1"), typeAsEquals("a2")), value -> typeAsEquals(value.toString().substring(0, 1)));
+        final HashMultimap<Equals<String>, Equals<String>> second = new HashMultimap<>(64);
+        second.put(typeAsEquals("b"), typeAsEquals("b1"));
+        second.put(typeAsEquals("a"), typeAsEquals("a1"));
+        second.put(typeAsEquals("a"), typeAsEquals("a2"));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.remove(typeAsEquals("a"), typeAsEquals("a1"));
+        second.put(typeAsEquals("a"), typeAsEquals("a1"));
+        assertNotEquals(first, second);
+    }
+}
@@ -0,0 +1,171 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HashMultisetTest {
+
+    @Test
+    void addAndRemoveShouldTrackCounts() {
+
+        final HashMultiset<Equals<String>> subjectUnderTest = new HashMultiset<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("a"));
+
+        assertEquals(2, subjectUnderTest.add(typeAsEquals("a"), 3));
+        assertEquals(0, subjectUnderTest.add(typeAsEquals("c"), 0));
+        assertEquals(5, subjectUnderTest.count(typeAsEquals("a")));
+        assertEquals(1, subjectUnderTest.count(typeAsEquals("b")));
+        assertEquals(0, subjectUnderTest.count(typeAsEquals("c")));
+        assertEquals(2, subjectUnderTest.size());
+        assertEquals(6, subjectUnderTest.totalCount());
+
+        assertEquals(5, subjectUnderTest.remove(typeAsEquals("a"), 2));
+        assertTrue(subjectUnderTest.remove(typeAsEquals("b")));
+        assertFalse(subjectUnderTest.remove(typeAsEquals("b")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("b")));
+        assertEquals(3, subjectUnderTest.remove(typeAsEquals("a"), 10));
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals(0, subjectUnderTest.totalCount());
+
+        assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.add(typeAsEquals("a"), -1));
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.add(null));
+        assertEquals(0, subjectUnderTest.remove(null, 1));
+    }
+
+    @Test
+    void setCountShouldReplaceTheCount() {
+
+        final HashMultiset<Equals<String>> subjectUnderTest = new HashMultiset<>();
+
+        assertEquals(0, subjectUnderTest.setCount(typeAsEquals("a"), 4));
+        assertEquals(4, subjectUnderTest.setCount(typeAsEquals("a"), 2));
+        assertEquals(2, subjectUnderTest.count(typeAsEquals("a")));
+        assertEquals(0, subjectUnderTest.setCount(typeAsEquals("b"), 0));
+        assertEquals(2, subjectUnderTest.setCount(typeAsEquals("a"), 0));
+
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals(0, subjectUnderTest.totalCount());
+    }
+
+    @Test
+    void countsShouldSurviveGrowingAndShrinking() {
+
+        final HashMultiset<Pair<Integer, Integer>> subjectUnderTest = new HashMultiset<>();
+        final int[] expected = new int[5_000];
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            final int value = random.nextInt(expected.length);
+            subjectUnderTest.add(new Pair<>(value, value));
+            expected[value]++;
+        }
+        for (int value = 0; value < expected.length; value += 2) {
+            subjectUnderTest.setCount(new Pair<>(value, value), 0);
+            expected[value] = 0;
+        }
+
+        long total = 0;
+        for (int value = 0; value < expected.length; value++) {
+            assertEquals(expected[value], subjectUnderTest.count(new Pair<>(value, value)));
+            total += expected[value];
+        }
+        assertEquals(total, subjectUnderTest.totalCount());
+
+        for (int value = 1; value < expected.length; value += 2) {
+            subjectUnderTest.remove(new Pair<>(value, value), expected[value]);
+        }
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals(new HashMultiset<>().capacity(), subjectUnderTest.capacity());
+    }
+
+    @Test
+    void forEachEntryAndEntriesSortedByCountShouldReportCounts() {
+
+        final HashMultiset<Equals<String>> subjectUnderTest = new HashMultiset<>();
+        subjectUnderTest.add(typeAsEquals("rare"), 1);
+        subjectUnderTest.add(typeAsEquals("common"), 10);
+        subjectUnderTest.add(typeAsEquals("middling"), 5);
+
+        final long[] sum = new long[1];
+        subjectUnderTest.forEachEntry((element, count) -> sum[0] += count);
+        assertEquals(16, sum[0]);
+
+        final ArrayList<HashMultiset.Entry<Equals<String>>> sorted = subjectUnderTest.entriesSortedByCount();
+        assertEquals("[common=10, middling=5, rare=1]", sorted.toString());
+        assertEquals(typeAsEquals("common"), sorted.get(0).getElement());
+        assertEquals(10, sorted.get(0).getCount());
+
+        assertThrows(ConcurrentModificationException.class, () -> subjectUnderTest.forEachEntry((element, count) -> subjectUnderTest.add(typeAsEquals("new" + count))));
+    }
+
+    @Test
+    void multisetsShouldBeEqualWhenTheirCountsAre() {
+
+        final HashMultiset<Equals<String>> first = new HashMultiset<>();
+        first.addAll(typeAsEquals("a"), typeAsEquals("a"), typeAsEquals("b"));
+        final HashMultiset<Equals<String>> second = HashMultiset.withExpectedSize(100);
+        second.addAll(typeAsEquals("b"), typeAsEquals("a"), typeAsEquals("a"));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.add(typeAsEquals("b"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void multisetsShouldNeverEqualSetsEitherWayRound() {
+
+        final HashMultiset<Equals<String>> twoA = new HashMultiset<>();
+        twoA.addAll(typeAsEquals("a"), typeAsEquals("a"), typeAsEquals("b"));
+        final HashSet<Equals<String>> set = new HashSet<>();
+        set.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        assertNotEquals(twoA, set);
+        assertNotEquals(set, twoA);
+
+        // the element set compares distinct elements like any other assortment, both ways round
+        final AbstractAssortment<Equals<String>> elementSet = twoA.elementSet();
+        assertEquals(elementSet, set);
+        assertEquals(set, elementSet);
+        assertEquals(set.hashCode(), elementSet.hashCode());
+
+        twoA.setCount(typeAsEquals("b"), 0);
+        assertEquals(1, elementSet.size());
+        assertNotEquals(elementSet, set);
+        assertNotEquals(set, elementSet);
+    }
+
+    @Test
+    void iteratorShouldVisitEachDistinctElementOnceAndFailFast() {
+
+        final HashMultiset<Equals<String>> subjectUnderTest = new HashMultiset<>();
+        subjectUnderTest.add(typeAsEquals("a"), 3);
+        subjectUnderTest.add(typeAsEquals("b"), 2);
+
+        final AbstractAssortment<Equals<String>> elementSet = subjectUnderTest.elementSet();
+        assertEquals(2, elementSet.stream().count());
+
+        final Iterator<Equals<String>> iterator = elementSet.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.add(typeAsEquals("a"));
+        assertNotNull(iterator.next());
+
+        final Iterator<Equals<String>> failing = elementSet.iterator();
+        assertNotNull(failing.next());
+        subjectUnderTest.add(typeAsEquals("c"));
+        assertThrows(ConcurrentModificationException.class, failing::next);
+    }
+}
@@ -0,0 +1,138 @@
+package ca.mpringle.assortments;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HashSetStatsTest {
+
+    @Test
+    void statsShouldDescribeAnEmptySet() {
+
+        final HashSetStats subjectUnderTest = new HashSet<Equals<String>>(4).getStats();
+
+        assertEquals(0, subjectUnderTest.getSize());
+        assertEquals(4, subjectUnderTest.getCapacity());
+        assertEquals(0, subjectUnderTest.getMaxProbeLength());
+        assertEquals(0D, subjectUnderTest.getAverageProbeLength());
+        assertEquals(0, subjectUnderTest.getProbeLengthHistogram().length);
+        assertEquals(0D, subjectUnderTest.getContainsHitRatio());
+    }
+
+    @Test
+    void probeLengthHistogramShouldCountEveryElement() {
+
+        final HashSet<Equals<Integer>> hashSet = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            hashSet.add(typeAsEquals(i));
+        }
+
+        final HashSetStats subjectUnderTest = hashSet.getStats();
+
+        final long[] histogram = subjectUnderTest.getProbeLengthHistogram();
+        assertEquals(1000, subjectUnderTest.getSize());
+        assertEquals(1000, Arrays.stream(histogram).sum());
+        assertEquals(histogram.length, subjectUnderTest.getMaxProbeLength());
+        assertTrue(histogram[histogram.length - 1] > 0);
+        assertTrue(subjectUnderTest.getAverageProbeLength() >= 1D);
+        assertEquals(0, subjectUnderTest.getCollidingElements());
+    }
+
+    @Test
+    void collidingElementsShouldCountSharedHashes() {
+
+        final HashSet<Equals<String>> hashSet = new HashSet<>(4);
+        // "Aa" and "BB" share a hash code
+        hashSet.addAll(typeAsEquals("Aa"), typeAsEquals("BB"), typeAsEquals("C"));
+
+        final HashSetStats subjectUnderTest = hashSet.getStats();
+
+        assertEquals(2, subjectUnderTest.getCollidingElements());
+        assertEquals(2, subjectUnderTest.getMaxProbeLength());
+    }
+
+    @Test
+    void countersShouldOnlyRecordWhileEnabled() {
+
+        final HashSet<Equals<Integer>> subjectUnderTest = new HashSet<>();
+        subjectUnderTest.add(typeAsEquals(1));
+        subjectUnderTest.contains(typeAsEquals(1));
+        assertFalse(subjectUnderTest.isStatsEnabled());
+        assertEquals(0L, subjectUnderTest.getStats().getContainsHits());
+
+        subjectUnderTest.setStatsEnabled(true);
+        subjectUnderTest.contains(typeAsEquals(1));
+        subjectUnderTest.contains(typeAsEquals(1));
+        subjectUnderTest.contains(typeAsEquals(2));
+        for (int i = 2; i < 100; i++) {
+            subjectUnderTest.add(typeAsEquals(i));
+        }
+
+        final HashSetStats stats = subjectUnderTest.getStats();
+        assertEquals(2L, stats.getContainsHits());
+        assertEquals(1L, stats.getContainsMisses());
+        assertEquals(2D / 3D, stats.getContainsHitRatio());
+        // moving out of the compact array counts as a resize
+        assertEquals(5L, stats.getResizeCount());
+        assertTrue(stats.getResizeNanos() > 0L);
+
+        subjectUnderTest.setStatsEnabled(false);
+        assertEquals(0L, subjectUnderTest.getStats().getResizeCount());
+    }
+
+    @Test
+    void statsShouldIncludeBothTablesDuringIncrementalResize() {
+
+        final HashSet<Equals<Integer>> hashSet = new HashSet<>(64, true);
+        for (int i = 0; i < 49; i++) {
+            hashSet.add(typeAsEquals(i));
+        }
+
+        final HashSetStats subjectUnderTest = hashSet.getStats();
+
+        assertTrue(hashSet.toString().contains("resizing from"));
+        assertEquals(49, subjectUnderTest.getSize());
+        assertEquals(128, subjectUnderTest.getCapacity());
+        assertEquals(49, Arrays.stream(subjectUnderTest.getProbeLengthHistogram()).sum());
+    }
+
+    @Test
+    void statsShouldScanCompactSetsLinearly() {
+
+        final HashSet<Equals<String>> hashSet = new HashSet<>();
+        hashSet.addAll(typeAsEquals("Aa"), typeAsEquals("BB"), typeAsEquals("C"));
+
+        final HashSetStats subjectUnderTest = hashSet.getStats();
+
+        assertEquals(3, subjectUnderTest.getSize());
+        assertEquals(4, subjectUnderTest.getCapacity());
+        assertEquals(3, subjectUnderTest.getMaxProbeLength());
+        assertEquals(2D, subjectUnderTest.getAverageProbeLength());
+        assertEquals(2, subjectUnderTest.getCollidingElements());
+    }
+
+    @Test
+    void registerStatsMBeanShouldExposeTheStats() throws Exception {
+
+        final HashSet<Equals<Integer>> hashSet = new HashSet<>();
+        hashSet.addAll(typeAsEquals(1), typeAsEquals(2), typeAsEquals(3));
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = hashSet.registerStatsMBean("registerStatsMBeanShouldExposeTheStats");
+        try {
+            assertTrue(hashSet.isStatsEnabled());
+            assertEquals(3, server.getAttribute(objectName, "Size"));
+            assertEquals(4, server.getAttribute(objectName, "Capacity"));
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+}
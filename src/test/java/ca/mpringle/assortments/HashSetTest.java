@@ -4,16 +4,21 @@ import ca.mpringle.util.Pair;
 import jakarta.annotation.Nullable;
 import org.junit.jupiter.api.Test;
 
+import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
 
 import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -66,6 +71,162 @@ final class HashSetTest {
         assertEquals(numberOfElements, subjectUnderTest.size());
     }
 
+    @Test
+    void addShouldHandleNegativeHashCodes() {
+
+        final HashSet<CollidingEquals> subjectUnderTest = new HashSet<>();
+
+        final int[] hashes = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, -2, -1_000_003, 0, Integer.MAX_VALUE};
+        for (int i = 0; i < hashes.length; i++) {
+            subjectUnderTest.add(new CollidingEquals(i, hashes[i]));
+        }
+
+        assertEquals(hashes.length, subjectUnderTest.size());
+        for (int i = 0; i < hashes.length; i++) {
+            assertTrue(subjectUnderTest.contains(new CollidingEquals(i, hashes[i])));
+            assertTrue(subjectUnderTest.remove(new CollidingEquals(i, hashes[i])));
+        }
+        assertTrue(subjectUnderTest.isEmpty());
+    }
+
+    @Test
+    void addShouldHandleHashesThatDifferOnlyInHighBits() {
+
+        final HashSet<CollidingEquals> subjectUnderTest = new HashSet<>();
+
+        // without spreading, every one of these lands on slot 0 of any table up to 2^16 slots
+        final int numberOfElements = 10_000;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new CollidingEquals(i, i << 16));
+        }
+
+        assertEquals(numberOfElements, subjectUnderTest.size());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertTrue(subjectUnderTest.contains(new CollidingEquals(i, i << 16)));
+        }
+        assertFalse(subjectUnderTest.contains(new CollidingEquals(numberOfElements, numberOfElements << 16)));
+    }
+
+    @Test
+    void addShouldHandleSmallIntegerObjectsHash() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>();
+
+        // Objects.hash of small ints clusters into a narrow band of values
+        for (int i = -50; i < 50; i++) {
+            for (int j = -50; j < 50; j++) {
+                subjectUnderTest.add(new Pair<>(i, j));
+            }
+        }
+
+        assertEquals(10_000, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.contains(new Pair<>(-50, 49)));
+        assertFalse(subjectUnderTest.contains(new Pair<>(50, 50)));
+    }
+
+    @Test
+    void addShouldTreeifyComparesElementsSharingHash() {
+
+        final HashSet<CollidingCompares> subjectUnderTest = new HashSet<>();
+
+        final int numberOfElements = 50_000;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new CollidingCompares(i));
+            subjectUnderTest.add(new CollidingCompares(i));
+        }
+
+        assertEquals(numberOfElements, subjectUnderTest.size());
+        assertEquals(numberOfElements, subjectUnderTest.stream().count());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertTrue(subjectUnderTest.contains(new CollidingCompares(i)));
+        }
+        assertFalse(subjectUnderTest.contains(new CollidingCompares(-1)));
+    }
+
+    @Test
+    void removeShouldWorkOnTreeifiedElements() {
+
+        final HashSet<CollidingCompares> subjectUnderTest = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.add(new CollidingCompares(i));
+        }
+
+        assertTrue(subjectUnderTest.remove(new CollidingCompares(50)));
+        assertFalse(subjectUnderTest.remove(new CollidingCompares(50)));
+        assertTrue(subjectUnderTest.removeIf(e -> e.value > 0));
+        assertEquals(1, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.contains(new CollidingCompares(0)));
+
+        final HashSet<CollidingCompares> copy = new HashSet<>();
+        copy.addAll(subjectUnderTest);
+        assertEquals(subjectUnderTest, copy);
+
+        assertTrue(subjectUnderTest.remove(new CollidingCompares(0)));
+        assertTrue(subjectUnderTest.isEmpty());
+    }
+
+    @Test
+    void withRandomSeedShouldBehaveAsSet() {
+
+        final HashSet<CollidingEquals> seeded = HashSet.withRandomSeed();
+        final HashSet<CollidingEquals> unseeded = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            seeded.add(new CollidingEquals(i, i << 20));
+            seeded.add(new CollidingEquals(i, i << 20));
+        }
+        unseeded.addAll(seeded);
+
+        assertEquals(1_000, seeded.size());
+        assertEquals(seeded, unseeded);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(unseeded.contains(new CollidingEquals(i, i << 20)));
+            assertTrue(seeded.remove(new CollidingEquals(i, i << 20)));
+        }
+    }
+
+    @Test
+    void withExpectedSizeShouldNotGrow() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = HashSet.withExpectedSize(10_000);
+        final int capacity = subjectUnderTest.capacity();
+
+        for (int i = 0; i < 10_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        assertEquals(capacity, subjectUnderTest.capacity());
+        assertEquals(16_384, capacity);
+    }
+
+    @Test
+    void resizePolicyShouldControlGrowth() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>(
+                ResizePolicy.defaults().withLoadFactor(0.5D).withGrowthFactor(4D).withMaxCapacity(64)
+        );
+
+        for (int i = 0; i < 32; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        assertEquals(64, subjectUnderTest.capacity());
+
+        // at the maximum capacity the table refuses to fill beyond the load factor
+        assertThrows(
+                IllegalStateException.class,
+                () -> subjectUnderTest.add(new Pair<>(-1, -1))
+        );
+        assertEquals(32, subjectUnderTest.size());
+    }
+
+    @Test
+    void constructorShouldRoundCapacityToPowerOfTwo() {
+
+        assertEquals(1, new HashSet<Equals<String>>(1).capacity());
+        assertEquals(128, new HashSet<Equals<String>>(100).capacity());
+    }
+
     @Test
     void addAllShouldWork() {
 
@@ -117,6 +278,85 @@ final class HashSetTest {
         );
     }
 
+    @Test
+    void iteratorShouldFailFastOnModification() {
+
+        final HashSet<Equals<String>> subjectUnderTest = new HashSet<>();
+        subjectUnderTest.add(typeAsEquals("a"));
+        subjectUnderTest.add(typeAsEquals("b"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        iterator.next();
+        subjectUnderTest.add(typeAsEquals("c"));
+
+        assertThrows(
+                ConcurrentModificationException.class,
+                iterator::next
+        );
+    }
+
+    @Test
+    void streamShouldVisitEveryElementOnce() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>();
+
+        final int size = 10_000;
+        for (int i = 0; i < size; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        assertEquals(size, subjectUnderTest.stream().count());
+        assertEquals(size, subjectUnderTest.parallelStream().distinct().count());
+        assertEquals(
+                (long) size * (size - 1) / 2,
+                subjectUnderTest.parallelStream().mapToLong(Pair::getFirst).sum()
+        );
+    }
+
+    @Test
+    void spliteratorShouldKnowItsSizeOnlyBeforeSplitting() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>();
+        final Random random = new Random(777);
+        while (subjectUnderTest.size() < 777) {
+            final int key = random.nextInt();
+            subjectUnderTest.add(new Pair<>(key, key));
+        }
+
+        final Spliterator<Pair<Integer, Integer>> suffix = subjectUnderTest.spliterator();
+        assertTrue(suffix.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(777, suffix.getExactSizeIfKnown());
+
+        final Spliterator<Pair<Integer, Integer>> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertFalse(prefix.hasCharacteristics(Spliterator.SIZED));
+        assertFalse(suffix.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(-1, prefix.getExactSizeIfKnown());
+        assertEquals(-1, suffix.getExactSizeIfKnown());
+
+        final long[] visited = new long[1];
+        prefix.forEachRemaining(element -> visited[0]++);
+        suffix.forEachRemaining(element -> visited[0]++);
+        assertEquals(777, visited[0]);
+    }
+
+    @Test
+    void parallelStreamShouldCollectEveryElement() {
+
+        for (final boolean incrementalResize : new boolean[]{false, true}) {
+            final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>(16, incrementalResize);
+            final Random random = new Random(100_000);
+            while (subjectUnderTest.size() < 100_000) {
+                final int key = random.nextInt();
+                subjectUnderTest.add(new Pair<>(key, key));
+            }
+
+            assertEquals(subjectUnderTest.size(), subjectUnderTest.parallelStream().count());
+            assertEquals(subjectUnderTest.size(), subjectUnderTest.parallelStream().toArray().length);
+            assertEquals(subjectUnderTest.size(), subjectUnderTest.parallelStream().map(x -> x).toList().size());
+        }
+    }
+
     @Test
     void toStringShouldHaveCustomImplementation() {
 
@@ -226,6 +466,320 @@ final class HashSetTest {
     }
 
 
+    @Test
+    void constructorShouldRejectNonPositiveCapacity() {
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new HashSet<Equals<String>>(0)
+        );
+    }
+
+    @Test
+    void removeShouldWork() {
+
+        final HashSet<Equals<String>> subjectUnderTest = new HashSet<>();
+        subjectUnderTest.add(typeAsEquals("a"));
+        subjectUnderTest.add(typeAsEquals("b"));
+
+        assertTrue(subjectUnderTest.remove(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.remove(typeAsEquals("a")));
+        assertFalse(subjectUnderTest.remove(null));
+
+        assertEquals(1, subjectUnderTest.size());
+        assertFalse(subjectUnderTest.contains(typeAsEquals("a")));
+        assertTrue(subjectUnderTest.contains(typeAsEquals("b")));
+    }
+
+    @Test
+    void removeShouldKeepCollidingElementsReachable() {
+
+        final HashSet<CollidingEquals> subjectUnderTest = new HashSet<>();
+
+        final int numberOfElements = 100;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new CollidingEquals(i, i % 3));
+        }
+
+        // remove every other element, shifting the rest of each cluster back
+        for (int i = 0; i < numberOfElements; i += 2) {
+            assertTrue(subjectUnderTest.remove(new CollidingEquals(i, i % 3)));
+        }
+
+        assertEquals(numberOfElements / 2, subjectUnderTest.size());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertEquals(i % 2 == 1, subjectUnderTest.contains(new CollidingEquals(i, i % 3)));
+        }
+    }
+
+    @Test
+    void removeIfShouldTestEachElementOnce() {
+
+        final HashSet<CollidingEquals> subjectUnderTest = new HashSet<>();
+
+        final int numberOfElements = 1_000;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new CollidingEquals(i, i % 7));
+        }
+
+        final List<CollidingEquals> tested = new ArrayList<>();
+        assertTrue(subjectUnderTest.removeIf(e -> tested.add(e) && e.value % 3 != 0));
+        assertFalse(subjectUnderTest.removeIf(e -> e.value % 3 != 0));
+
+        assertEquals(numberOfElements, tested.size());
+        assertEquals(numberOfElements, tested.stream().distinct().count());
+        assertEquals(334, subjectUnderTest.size());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertEquals(i % 3 == 0, subjectUnderTest.contains(new CollidingEquals(i, i % 7)));
+        }
+    }
+
+    @Test
+    void retainAllShouldWork() {
+
+        final HashSet<Equals<String>> subjectUnderTest = new HashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+
+        final LinkedList<Equals<String>> retained = new LinkedList<>();
+        retained.add(typeAsEquals("b"));
+        retained.add(typeAsEquals("z"));
+
+        assertTrue(subjectUnderTest.retainAll(retained));
+        assertFalse(subjectUnderTest.retainAll(retained));
+
+        assertEquals(1, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.contains(typeAsEquals("b")));
+    }
+
+    @Test
+    void compactSetShouldAllocateLazilyAndInflatePastLimit() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>();
+        assertTrue(subjectUnderTest.isCompact());
+        assertEquals(0, subjectUnderTest.capacity());
+
+        for (int i = 0; i < HashSet.COMPACT_LIMIT; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        assertTrue(subjectUnderTest.isCompact());
+        assertEquals(HashSet.COMPACT_LIMIT, subjectUnderTest.capacity());
+        assertEquals(HashSet.COMPACT_LIMIT, subjectUnderTest.size());
+
+        subjectUnderTest.add(new Pair<>(-1, -1));
+        assertFalse(subjectUnderTest.isCompact());
+        assertEquals(HashSet.COMPACT_LIMIT + 1, subjectUnderTest.size());
+        for (int i = -1; i < HashSet.COMPACT_LIMIT; i++) {
+            assertTrue(subjectUnderTest.contains(new Pair<>(i, i)));
+        }
+    }
+
+    @Test
+    void compactSetShouldRemoveElements() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        assertTrue(subjectUnderTest.remove(new Pair<>(0, 0)));
+        assertFalse(subjectUnderTest.remove(new Pair<>(0, 0)));
+        assertTrue(subjectUnderTest.removeIf(pair -> pair.getFirst() % 2 == 1));
+        assertFalse(subjectUnderTest.removeIf(pair -> pair.getFirst() % 2 == 1));
+
+        assertTrue(subjectUnderTest.isCompact());
+        assertEquals(2, subjectUnderTest.size());
+        assertEquals(List.of(2, 4), subjectUnderTest.stream().map(Pair::getFirst).sorted().toList());
+        assertFalse(subjectUnderTest.contains(new Pair<>(0, 0)));
+    }
+
+    @Test
+    void addAllShouldMixCompactAndHashedSets() {
+
+        final HashSet<Pair<Integer, Integer>> compact = new HashSet<>();
+        final HashSet<Pair<Integer, Integer>> hashed = HashSet.withExpectedSize(100);
+        for (int i = 0; i < 5; i++) {
+            compact.add(new Pair<>(i, i));
+        }
+        for (int i = 0; i < 100; i++) {
+            hashed.add(new Pair<>(i, i));
+        }
+        assertTrue(compact.isCompact());
+        assertFalse(hashed.isCompact());
+
+        final HashSet<Pair<Integer, Integer>> fromCompact = new HashSet<>(4);
+        fromCompact.addAll(compact);
+        assertEquals(5, fromCompact.size());
+
+        compact.addAll(hashed);
+        assertFalse(compact.isCompact());
+        assertEquals(100, compact.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(compact.contains(new Pair<>(i, i)));
+        }
+    }
+
+    @Test
+    void setsShouldOnlyStartCompactWhenTheyCanInflate() {
+
+        assertTrue(HashSet.withRandomSeed().isCompact());
+        assertTrue(HashSet.withExpectedSize(HashSet.COMPACT_LIMIT).isCompact());
+        assertFalse(HashSet.withExpectedSize(HashSet.COMPACT_LIMIT + 1).isCompact());
+        assertFalse(new HashSet<Equals<String>>(4).isCompact());
+        assertFalse(new HashSet<Equals<String>>(ResizePolicy.defaults().withMaxCapacity(8)).isCompact());
+    }
+
+    @Test
+    void removeShouldShrinkWithHysteresis() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>(8);
+
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        final int grownCapacity = subjectUnderTest.capacity();
+
+        subjectUnderTest.removeIf(pair -> pair.getFirst() >= 10);
+        final int shrunkCapacity = subjectUnderTest.capacity();
+        assertTrue(shrunkCapacity < grownCapacity);
+        assertTrue(shrunkCapacity >= 8);
+
+        // hovering around the size the table was shrunk to must not resize it
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.add(new Pair<>(-1, -1));
+            subjectUnderTest.remove(new Pair<>(-1, -1));
+            subjectUnderTest.remove(new Pair<>(0, 0));
+            subjectUnderTest.add(new Pair<>(0, 0));
+            assertEquals(shrunkCapacity, subjectUnderTest.capacity());
+        }
+        assertEquals(10, subjectUnderTest.size());
+    }
+
+    @Test
+    void incrementalResizeShouldKeepEveryElementReachable() {
+
+        final HashSet<CollidingEquals> subjectUnderTest = new HashSet<>(3, true);
+
+        final int numberOfElements = 5_000;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new CollidingEquals(i, i % 97));
+            assertTrue(subjectUnderTest.contains(new CollidingEquals(i / 2, (i / 2) % 97)));
+            assertEquals(i + 1, subjectUnderTest.size());
+            if (i % 3 == 0) {
+                // removals during a migration may hit either table
+                assertTrue(subjectUnderTest.remove(new CollidingEquals(i, i % 97)));
+                subjectUnderTest.add(new CollidingEquals(i, i % 97));
+            }
+        }
+
+        assertEquals(numberOfElements, subjectUnderTest.stream().count());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertTrue(subjectUnderTest.contains(new CollidingEquals(i, i % 97)));
+        }
+    }
+
+    @Test
+    void incrementalResizeShouldIterateBothTables() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>(64, true);
+
+        // the 49th add starts a migration, which only moves a few slots at a time
+        for (int i = 0; i < 49; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        assertTrue(subjectUnderTest.toString().contains("resizing from"));
+
+        final HashSet<Pair<Integer, Integer>> copy = new HashSet<>();
+        copy.addAll(subjectUnderTest);
+
+        @SuppressWarnings("unchecked") final Pair<Integer, Integer>[] array = subjectUnderTest.toArray(Pair[]::new);
+        assertEquals(49, array.length);
+        assertEquals(subjectUnderTest, copy);
+    }
+
+    @Test
+    void callsThatChangeNothingShouldNotMigrateDuringIteration() {
+
+        final HashSet<Pair<Integer, Integer>> subjectUnderTest = new HashSet<>(64, true);
+        for (int i = 0; i < 49; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        // moving slots from the old table under the cursor would visit elements twice
+        int visited = 0;
+        for (final Pair<Integer, Integer> ignored : subjectUnderTest) {
+            subjectUnderTest.add(new Pair<>(0, 0));
+            assertFalse(subjectUnderTest.remove(new Pair<>(-1, -1)));
+            visited++;
+        }
+
+        assertEquals(49, visited);
+        assertTrue(subjectUnderTest.toString().contains("resizing from"));
+    }
+
+    private static final class CollidingCompares extends AbstractEquals<CollidingCompares>
+            implements Compares<CollidingCompares> {
+
+        private final int value;
+
+        private CollidingCompares(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(@NotNull final CollidingCompares instance) {
+
+            return Integer.compare(value, instance.value);
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final CollidingCompares instance) {
+
+            return instance != null && compareTo(instance) == 0;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return 42;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+
+    private static final class CollidingEquals extends AbstractEquals<CollidingEquals> {
+
+        private final int value;
+        private final int hash;
+
+        private CollidingEquals(final int value, final int hash) {
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final CollidingEquals instance) {
+
+            return instance != null && value == instance.value;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+
     private static class BadHashEquals extends AbstractEquals<BadHashEquals> {
 
         public BadHashEquals() {
@@ -0,0 +1,49 @@
+package ca.mpringle.assortments;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HashingTest {
+
+    @Test
+    void tableSizeForShouldRoundUpToPowerOfTwo() {
+
+        assertEquals(1, Hashing.tableSizeFor(-1));
+        assertEquals(1, Hashing.tableSizeFor(0));
+        assertEquals(1, Hashing.tableSizeFor(1));
+        assertEquals(2, Hashing.tableSizeFor(2));
+        assertEquals(4, Hashing.tableSizeFor(3));
+        assertEquals(1024, Hashing.tableSizeFor(1024));
+        assertEquals(2048, Hashing.tableSizeFor(1025));
+        assertEquals(Hashing.MAXIMUM_CAPACITY, Hashing.tableSizeFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void spreadShouldNotCollideDistinctHashes() {
+
+        final long distinct = IntStream
+                .range(-100_000, 100_000)
+                .map(Hashing::spread)
+                .distinct()
+                .count();
+
+        assertEquals(200_000, distinct);
+    }
+
+    @Test
+    void spreadShouldFillLowBitsFromHighBits() {
+
+        // hashes differing only above bit 16 must still use most of a 1024 slot table
+        final long usedSlots = IntStream
+                .range(0, 1024)
+                .map(i -> Hashing.spread(i << 16) & 1023)
+                .distinct()
+                .count();
+
+        assertTrue(usedSlots > 600, "only " + usedSlots + " slots used");
+    }
+}
@@ -0,0 +1,107 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class IndexLinkedListTest {
+
+    @Test
+    void addAndRemoveShouldWorkAtBothEnds() {
+
+        final IndexLinkedList<Equals<String>> subjectUnderTest = new IndexLinkedList<>();
+
+        assertNull(subjectUnderTest.get());
+        assertNull(subjectUnderTest.peek());
+        assertNull(subjectUnderTest.poll());
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"), typeAsEquals("d"));
+        assertEquals(typeAsEquals("d"), subjectUnderTest.get());
+        assertEquals(typeAsEquals("a"), subjectUnderTest.peek());
+
+        subjectUnderTest.remove();
+        assertEquals(typeAsEquals("c"), subjectUnderTest.get());
+        assertEquals(typeAsEquals("a"), subjectUnderTest.poll());
+        assertEquals(typeAsEquals("b"), subjectUnderTest.peek());
+        assertEquals("[b->c]", subjectUnderTest.toString());
+        assertEquals(2, subjectUnderTest.size());
+
+        subjectUnderTest.remove();
+        assertEquals(typeAsEquals("b"), subjectUnderTest.poll());
+        assertTrue(subjectUnderTest.isEmpty());
+        assertNull(subjectUnderTest.get());
+        subjectUnderTest.remove();
+        assertEquals(0, subjectUnderTest.size());
+        assertEquals("[]", subjectUnderTest.toString());
+
+        subjectUnderTest.add(null);
+        assertEquals(1, subjectUnderTest.size());
+        assertThrows(IllegalArgumentException.class, () -> new IndexLinkedList<>(0));
+    }
+
+    @Test
+    void churnShouldReuseFreedSlotsWithoutGrowing() {
+
+        final IndexLinkedList<Pair<Integer, Integer>> subjectUnderTest = new IndexLinkedList<>();
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        final int capacity = subjectUnderTest.capacity();
+
+        // a queue that keeps 1,000 elements while 100,000 pass through it
+        for (int i = 1_000; i < 101_000; i++) {
+            assertEquals(new Pair<>(i - 1_000, i - 1_000), subjectUnderTest.poll());
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        assertEquals(capacity, subjectUnderTest.capacity());
+        assertEquals(1_000, subjectUnderTest.size());
+
+        int expected = 100_000;
+        for (final Pair<Integer, Integer> element : subjectUnderTest) {
+            assertEquals(new Pair<>(expected, expected), element);
+            expected++;
+        }
+        assertEquals(101_000, expected);
+
+        subjectUnderTest.clear();
+        assertTrue(subjectUnderTest.isEmpty());
+        assertNull(subjectUnderTest.peek());
+        subjectUnderTest.add(new Pair<>(1, 1));
+        assertEquals(new Pair<>(1, 1), subjectUnderTest.get());
+        assertEquals(capacity, subjectUnderTest.capacity());
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final IndexLinkedList<Equals<String>> subjectUnderTest = new IndexLinkedList<>(1);
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+
+        assertEquals(List.of("a", "b", "c"), subjectUnderTest.stream().map(Object::toString).collect(Collectors.toList()));
+        assertTrue(subjectUnderTest.contains(typeAsEquals("b")));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertEquals(typeAsEquals("a"), iterator.next());
+        subjectUnderTest.poll();
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        final Iterator<Equals<String>> exhausted = subjectUnderTest.iterator();
+        exhausted.next();
+        exhausted.next();
+        assertFalse(exhausted.hasNext());
+        assertThrows(NoSuchElementException.class, exhausted::next);
+
+        assertThrows(ConcurrentModificationException.class, () -> subjectUnderTest.forEach(element -> subjectUnderTest.add(element)));
+    }
+}
@@ -0,0 +1,140 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class IndexedDaryHeapTest {
+
+    @Test
+    void decreaseKeyShouldReorderTheQueue() {
+
+        final IndexedDaryHeap<Distance> subjectUnderTest = new IndexedDaryHeap<>(10);
+        for (int id = 0; id < 10; id++) {
+            subjectUnderTest.offer(id, new Distance(100 - id));
+        }
+        assertEquals(9, subjectUnderTest.peek());
+
+        subjectUnderTest.decreaseKey(3, new Distance(1));
+        subjectUnderTest.decreaseKey(5, new Distance(50));
+
+        assertEquals(new Distance(50), subjectUnderTest.priority(5));
+        assertEquals(3, subjectUnderTest.poll());
+        assertFalse(subjectUnderTest.contains(3));
+        assertNull(subjectUnderTest.priority(3));
+        assertEquals(5, subjectUnderTest.poll());
+        assertEquals(9, subjectUnderTest.poll());
+        assertEquals(7, subjectUnderTest.size());
+
+        assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.decreaseKey(0, new Distance(1_000)));
+        assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.decreaseKey(3, new Distance(0)));
+        assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.offer(0, new Distance(0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> subjectUnderTest.offer(10, new Distance(0)));
+    }
+
+    @Test
+    void dijkstraShouldFindTheShortestPaths() {
+
+        // a 20 x 20 grid where moving right costs the column and moving down costs 1
+        final int side = 20;
+        final IndexedDaryHeap<Distance> subjectUnderTest = new IndexedDaryHeap<>(side * side, 2);
+        final int[] distances = new int[side * side];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        distances[0] = 0;
+        subjectUnderTest.offer(0, new Distance(0));
+        while (!subjectUnderTest.isEmpty()) {
+            final int vertex = subjectUnderTest.poll();
+            final int row = vertex / side;
+            final int column = vertex % side;
+            if (column + 1 < side) {
+                relax(subjectUnderTest, distances, vertex, vertex + 1, column);
+            }
+            if (row + 1 < side) {
+                relax(subjectUnderTest, distances, vertex, vertex + side, 1);
+            }
+        }
+
+        final int[] expected = new int[side * side];
+        for (int vertex = 0; vertex < side * side; vertex++) {
+            final int column = vertex % side;
+            expected[vertex] = vertex / side + column * (column - 1) / 2;
+        }
+        assertArrayEquals(expected, distances);
+        assertThrows(NoSuchElementException.class, subjectUnderTest::poll);
+        assertEquals("[]", subjectUnderTest.toString());
+    }
+
+    @Test
+    void toStringShouldListIdsWithTheirPriorities() {
+
+        final IndexedDaryHeap<Distance> subjectUnderTest = new IndexedDaryHeap<>(3);
+        subjectUnderTest.offer(2, new Distance(5));
+        subjectUnderTest.offer(0, new Distance(1));
+
+        assertTrue(subjectUnderTest.contains(2));
+        assertEquals("[0=1, 2=5]", subjectUnderTest.toString());
+    }
+
+    private static void relax(@NotNull final IndexedDaryHeap<Distance> heap,
+                              @NotNull final int[] distances,
+                              final int from,
+                              final int to,
+                              final int weight) {
+
+        final int distance = distances[from] + weight;
+        if (distance >= distances[to]) {
+            return;
+        }
+
+        distances[to] = distance;
+        if (heap.contains(to)) {
+            heap.decreaseKey(to, new Distance(distance));
+        } else {
+            heap.offer(to, new Distance(distance));
+        }
+    }
+
+    private static final class Distance extends AbstractEquals<Distance> implements Compares<Distance> {
+
+        private final int value;
+
+        private Distance(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(@NotNull final Distance instance) {
+
+            return Integer.compare(value, instance.value);
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final Distance instance) {
+
+            return instance != null && compareTo(instance) == 0;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return value;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LinearProbingTest {
+
+    @Test
+    void probesShouldWrapAroundTheEndOfTheTable() {
+
+        // two entries homed in slot 6 and one in slot 7 of an 8 slot table, the last wrapped to slot 0
+        final int[] hashes = {15, 0, 0, 0, 0, 0, 6, 14};
+
+        assertEquals(6, LinearProbing.match(hashes, 6, 6));
+        assertEquals(0, LinearProbing.match(hashes, 15, 15));
+        assertEquals(~1, LinearProbing.match(hashes, 22, 22));
+        assertEquals(~1, LinearProbing.match(hashes, 6, 7));
+        assertEquals(1, LinearProbing.freeSlot(hashes, 7));
+        assertEquals(2, LinearProbing.freeSlot(hashes, 2));
+    }
+
+    @Test
+    void deletingShouldKeepEveryEntryReachable() {
+
+        final int[] hashes = {15, 0, 0, 0, 0, 0, 6, 14};
+
+        // deleting slot 6 shifts 14 back to it and then 15 back to slot 7
+        int hole = 6;
+        for (int candidate; (candidate = LinearProbing.nextShift(hashes, hole)) >= 0; hole = candidate) {
+            hashes[hole] = hashes[candidate];
+        }
+        hashes[hole] = 0;
+
+        assertEquals(0, hole);
+        assertEquals(6, LinearProbing.match(hashes, 14, 14));
+        assertEquals(7, LinearProbing.match(hashes, 15, 15));
+        assertTrue(LinearProbing.match(hashes, 6, 6) < 0);
+    }
+
+    @Test
+    void entriesShouldNeverShiftInFrontOfTheirHomeSlot() {
+
+        // slot 1 holds an entry homed in slot 1, it must not move into a hole in slot 0
+        final int[] hashes = {8, 1, 0, 0};
+
+        assertEquals(-1, LinearProbing.nextShift(hashes, 0));
+        assertFalse(LinearProbing.mayShift(1, 1, 0, 3));
+        assertTrue(LinearProbing.mayShift(3, 1, 0, 3));
+    }
+
+    @Test
+    void hashShouldNeverMarkAnEmptySlot() {
+
+        // the spread hash of 0 is 0
+        assertEquals(0, Hashing.spread(0));
+        assertEquals(1, LinearProbing.hash(new FixedHash(0)));
+        assertEquals(Hashing.spread(7), LinearProbing.hash(new FixedHash(7)));
+    }
+
+    private static final class FixedHash extends AbstractEquals<FixedHash> {
+
+        private final int hash;
+
+        private FixedHash(final int hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final FixedHash instance) {
+
+            return instance != null && hash == instance.hash;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class OrderedHashSetTest {
+
+    @Test
+    void iterationShouldFollowInsertionOrder() {
+
+        final OrderedHashSet<Equals<String>> subjectUnderTest = new OrderedHashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("z"), typeAsEquals("a"), typeAsEquals("m"), typeAsEquals("a"), typeAsEquals("b"));
+
+        assertEquals(4, subjectUnderTest.size());
+        assertEquals("{z, a, m, b}", subjectUnderTest.toString());
+        assertTrue(subjectUnderTest.contains(typeAsEquals("m")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("y")));
+        assertFalse(subjectUnderTest.contains(null));
+        assertThrows(NullPointerException.class, () -> subjectUnderTest.add(null));
+    }
+
+    @Test
+    void removeShouldKeepTheOrderOfTheRemainingElements() {
+
+        final OrderedHashSet<Pair<Integer, Integer>> subjectUnderTest = new OrderedHashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+        final int capacity = subjectUnderTest.capacity();
+
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 3 != 0) {
+                assertTrue(subjectUnderTest.remove(new Pair<>(i, i)));
+            }
+        }
+        assertFalse(subjectUnderTest.remove(new Pair<>(1, 1)));
+        assertFalse(subjectUnderTest.remove(null));
+
+        // re-adding an element moves it to the end
+        subjectUnderTest.add(new Pair<>(1, 1));
+
+        assertEquals(335, subjectUnderTest.size());
+        assertTrue(subjectUnderTest.capacity() < capacity);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 3 == 0 || i == 1, subjectUnderTest.contains(new Pair<>(i, i)));
+        }
+
+        final List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < 1_000; i += 3) {
+            expected.add(i);
+        }
+        expected.add(1);
+        assertEquals(expected, subjectUnderTest.stream().map(Pair::getFirst).collect(Collectors.toList()));
+    }
+
+    @Test
+    void addShouldReuseTheHolesLeftByRemove() {
+
+        final OrderedHashSet<Pair<Integer, Integer>> subjectUnderTest = OrderedHashSet.withExpectedSize(100);
+        final int capacity = subjectUnderTest.capacity();
+
+        for (int i = 0; i < 10_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+            if (i >= 50) {
+                subjectUnderTest.remove(new Pair<>(i - 50, i - 50));
+            }
+        }
+
+        assertTrue(subjectUnderTest.capacity() <= capacity);
+        assertEquals(50, subjectUnderTest.size());
+        assertEquals(9_950, subjectUnderTest.iterator().next().getFirst());
+        assertThrows(IllegalArgumentException.class, () -> OrderedHashSet.withExpectedSize(-1));
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final OrderedHashSet<Equals<String>> subjectUnderTest = new OrderedHashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertNotNull(iterator.next());
+        subjectUnderTest.remove(typeAsEquals("b"));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        final Iterator<Equals<String>> exhausted = new OrderedHashSet<Equals<String>>().iterator();
+        assertFalse(exhausted.hasNext());
+        assertThrows(NoSuchElementException.class, exhausted::next);
+    }
+
+    @Test
+    void spliteratorShouldKnowItsSizeOnlyWithoutHoles() {
+
+        final OrderedHashSet<Pair<Integer, Integer>> subjectUnderTest = new OrderedHashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+        }
+
+        final Spliterator<Pair<Integer, Integer>> dense = subjectUnderTest.spliterator();
+        final Spliterator<Pair<Integer, Integer>> densePrefix = dense.trySplit();
+        assertNotNull(densePrefix);
+        assertTrue(densePrefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.DISTINCT));
+        assertEquals(500, densePrefix.getExactSizeIfKnown());
+        assertEquals(500, dense.getExactSizeIfKnown());
+
+        subjectUnderTest.remove(new Pair<>(10, 10));
+        final Spliterator<Pair<Integer, Integer>> holey = subjectUnderTest.spliterator();
+        assertEquals(999, holey.getExactSizeIfKnown());
+        final Spliterator<Pair<Integer, Integer>> holeyPrefix = holey.trySplit();
+        assertNotNull(holeyPrefix);
+        assertFalse(holeyPrefix.hasCharacteristics(Spliterator.SIZED));
+        assertFalse(holey.hasCharacteristics(Spliterator.SIZED));
+
+        assertEquals(
+                499_490L,
+                subjectUnderTest.parallelStream().mapToLong(Pair::getFirst).sum()
+        );
+        assertEquals(
+                List.of(0, 1, 2),
+                subjectUnderTest.parallelStream().limit(3).map(Pair::getFirst).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void toArrayShouldCopyInInsertionOrder() {
+
+        final OrderedHashSet<Equals<String>> subjectUnderTest = new OrderedHashSet<>();
+        assertEquals(0, subjectUnderTest.toArray(OrderedHashSetTest::newArray).length);
+
+        subjectUnderTest.addAll(typeAsEquals("c"), typeAsEquals("a"), typeAsEquals("b"));
+        assertArrayEquals(
+                new Object[]{typeAsEquals("c"), typeAsEquals("a"), typeAsEquals("b")},
+                subjectUnderTest.toArray(OrderedHashSetTest::newArray)
+        );
+
+        subjectUnderTest.remove(typeAsEquals("c"));
+        assertArrayEquals(
+                new Object[]{typeAsEquals("a"), typeAsEquals("b")},
+                subjectUnderTest.toArray(OrderedHashSetTest::newArray)
+        );
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Equals<String>[] newArray(final int length) {
+
+        return new Equals[length];
+    }
+}
@@ -0,0 +1,215 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class PersistentHashSetTest {
+
+    @Test
+    void withAndWithoutShouldLeaveEarlierVersionsUnchanged() {
+
+        final PersistentHashSet<Equals<String>> empty = PersistentHashSet.empty();
+        final PersistentHashSet<Equals<String>> one = empty.with(typeAsEquals("a"));
+        final PersistentHashSet<Equals<String>> two = one.with(typeAsEquals("b"));
+        final PersistentHashSet<Equals<String>> back = two.without(typeAsEquals("a"));
+
+        assertTrue(empty.isEmpty());
+        assertEquals("{a}", one.toString());
+        assertEquals(2, two.size());
+        assertTrue(two.contains(typeAsEquals("a")));
+        assertTrue(two.contains(typeAsEquals("b")));
+        assertEquals("{b}", back.toString());
+        assertFalse(back.contains(typeAsEquals("a")));
+
+        assertSame(two, two.with(typeAsEquals("a")));
+        assertSame(two, two.without(typeAsEquals("c")));
+        assertSame(two, two.without(null));
+        assertFalse(two.contains(null));
+        assertTrue(back.without(typeAsEquals("b")).isEmpty());
+        assertThrows(NullPointerException.class, () -> one.with(null));
+    }
+
+    @Test
+    void versionsShouldMatchAReferenceSetThroughManyChanges() {
+
+        final Random random = new Random(42);
+        final java.util.HashSet<Integer> expected = new java.util.HashSet<>();
+        PersistentHashSet<Pair<Integer, Integer>> subjectUnderTest = PersistentHashSet.empty();
+        final PersistentHashSet<Pair<Integer, Integer>>[] snapshots = newArray(10);
+        final Set<Integer>[] expectedSnapshots = newSetArray(10);
+
+        for (int i = 0; i < 20_000; i++) {
+            final int value = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                subjectUnderTest = subjectUnderTest.without(new Pair<>(value, value));
+                expected.remove(value);
+            } else {
+                subjectUnderTest = subjectUnderTest.with(new Pair<>(value, value));
+                expected.add(value);
+            }
+            if (i % 2_000 == 0) {
+                snapshots[i / 2_000] = subjectUnderTest;
+                expectedSnapshots[i / 2_000] = Set.copyOf(expected);
+            }
+        }
+
+        assertContainsExactly(expected, subjectUnderTest);
+        for (int i = 0; i < snapshots.length; i++) {
+            assertContainsExactly(expectedSnapshots[i], snapshots[i]);
+        }
+    }
+
+    @Test
+    void collidingHashesShouldBeKeptApart() {
+
+        // a different hash that branches to the same child of the root as hash 0, so it has
+        // to split the collision node of the even elements
+        int neighbour = 2;
+        while (((Hashing.spread(neighbour) ^ Hashing.spread(0)) & 31) != 0) {
+            neighbour++;
+        }
+
+        final PersistentHashSet.Builder<Colliding> builder = PersistentHashSet.builder();
+        for (int i = 0; i < 50; i++) {
+            builder.add(new Colliding(i));
+        }
+        builder.add(new Colliding(1_000, neighbour));
+        final PersistentHashSet<Colliding> subjectUnderTest = builder.build();
+
+        assertEquals(51, subjectUnderTest.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(subjectUnderTest.contains(new Colliding(i)));
+        }
+        assertTrue(subjectUnderTest.contains(new Colliding(1_000, neighbour)));
+        assertFalse(subjectUnderTest.contains(new Colliding(50)));
+
+        PersistentHashSet<Colliding> shrinking = subjectUnderTest;
+        for (int i = 0; i < 50; i++) {
+            shrinking = shrinking.without(new Colliding(i));
+            assertEquals(50 - i, shrinking.size());
+        }
+        assertEquals("{1000}", shrinking.toString());
+        assertEquals(51, subjectUnderTest.size());
+    }
+
+    @Test
+    void builderShouldNotChangeBuiltSets() {
+
+        final PersistentHashSet.Builder<Pair<Integer, Integer>> builder = PersistentHashSet.builder();
+        for (int i = 0; i < 1_000; i++) {
+            builder.add(new Pair<>(i, i));
+        }
+        final PersistentHashSet<Pair<Integer, Integer>> first = builder.build();
+
+        for (int i = 0; i < 1_000; i += 2) {
+            assertTrue(builder.remove(new Pair<>(i, i)));
+        }
+        assertFalse(builder.remove(new Pair<>(0, 0)));
+        builder.add(new Pair<>(-1, -1));
+        final PersistentHashSet<Pair<Integer, Integer>> second = builder.build();
+
+        assertEquals(1_000, first.size());
+        assertTrue(first.contains(new Pair<>(0, 0)));
+        assertFalse(first.contains(new Pair<>(-1, -1)));
+        assertEquals(501, second.size());
+        assertEquals(501, builder.size());
+        assertTrue(builder.contains(new Pair<>(-1, -1)));
+        assertFalse(second.contains(new Pair<>(0, 0)));
+
+        final PersistentHashSet.Builder<Pair<Integer, Integer>> fromFirst = first.toBuilder();
+        fromFirst.remove(new Pair<>(1, 1));
+        assertEquals(999, fromFirst.build().size());
+        assertTrue(first.contains(new Pair<>(1, 1)));
+
+        assertSame(PersistentHashSet.empty(), PersistentHashSet.builder().build());
+    }
+
+    @Test
+    void setsShouldBeEqualWhenTheirElementsAre() {
+
+        final PersistentHashSet<Equals<String>> first = PersistentHashSet.of(typeAsEquals("a"), typeAsEquals("b"));
+        final PersistentHashSet<Equals<String>> second = PersistentHashSet.<Equals<String>>empty().with(typeAsEquals("b")).with(typeAsEquals("a"));
+        final HashSet<Equals<String>> hashSet = new HashSet<>();
+        hashSet.add(typeAsEquals("a"));
+        hashSet.add(typeAsEquals("b"));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first, PersistentHashSet.copyOf(hashSet));
+        assertNotEquals(first, second.with(typeAsEquals("c")));
+
+        final Iterator<Equals<String>> iterator = first.iterator();
+        iterator.next();
+        iterator.next();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    private static void assertContainsExactly(final Set<Integer> expected, final PersistentHashSet<Pair<Integer, Integer>> actual) {
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual.stream().map(Pair::getFirst).collect(Collectors.toSet()));
+        for (final int value : expected) {
+            assertTrue(actual.contains(new Pair<>(value, value)));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PersistentHashSet<Pair<Integer, Integer>>[] newArray(final int length) {
+
+        return new PersistentHashSet[length];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Set<Integer>[] newSetArray(final int length) {
+
+        return new Set[length];
+    }
+
+    /**
+     * Hashes to one of two values, so most elements land in collision nodes.
+     */
+    private static final class Colliding extends AbstractEquals<Colliding> {
+
+        private final int value;
+        private final int hash;
+
+        private Colliding(final int value) {
+            this(value, value % 2);
+        }
+
+        private Colliding(final int value, final int hash) {
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean isEqual(final Colliding instance) {
+            return instance != null && value == instance.value;
+        }
+
+        @Override
+        public int computeHash() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(value);
+        }
+    }
+}
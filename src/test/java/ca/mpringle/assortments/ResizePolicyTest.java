@@ -0,0 +1,84 @@
+package ca.mpringle.assortments;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ResizePolicyTest {
+
+    @Test
+    void equalsAndHashCodeShouldWork() {
+
+        EqualsVerifier
+                .forClass(ResizePolicy.class)
+                .withRedefinedSuperclass()
+                .withIgnoredFields("growthMultiple")
+                .verify();
+    }
+
+    @Test
+    void withersShouldValidateSettings() {
+
+        final ResizePolicy defaults = ResizePolicy.defaults();
+
+        assertThrows(IllegalArgumentException.class, () -> defaults.withLoadFactor(0D));
+        assertThrows(IllegalArgumentException.class, () -> defaults.withLoadFactor(1D));
+        assertThrows(IllegalArgumentException.class, () -> defaults.withGrowthFactor(1D));
+        assertThrows(IllegalArgumentException.class, () -> defaults.withMaxCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> defaults.withMaxCapacity(1000));
+        assertThrows(IllegalArgumentException.class, () -> defaults.withMaxCapacity(1 << 31));
+    }
+
+    @Test
+    void withersShouldChangeOneSetting() {
+
+        final ResizePolicy subjectUnderTest = ResizePolicy
+                .defaults()
+                .withLoadFactor(0.5D)
+                .withIncrementalResize(true);
+
+        assertEquals(0.5D, subjectUnderTest.getLoadFactor());
+        assertEquals(2D, subjectUnderTest.getGrowthFactor());
+        assertEquals(Hashing.MAXIMUM_CAPACITY, subjectUnderTest.getMaxCapacity());
+        assertTrue(subjectUnderTest.isIncrementalResize());
+        assertFalse(ResizePolicy.defaults().isIncrementalResize());
+    }
+
+    @Test
+    void capacityForShouldFitExpectedSizeWithoutGrowing() {
+
+        final ResizePolicy subjectUnderTest = ResizePolicy.defaults();
+
+        for (int expectedSize = 0; expectedSize < 10_000; expectedSize++) {
+            final int capacity = subjectUnderTest.capacityFor(expectedSize);
+            assertFalse(subjectUnderTest.shouldGrow(expectedSize, capacity));
+            assertTrue(capacity == 1 || subjectUnderTest.shouldGrow(expectedSize, capacity / 2));
+        }
+    }
+
+    @Test
+    void growthFactorShouldRoundToPowerOfTwo() {
+
+        assertEquals(32, ResizePolicy.defaults().withGrowthFactor(1.5D).grownCapacity(16));
+        assertEquals(64, ResizePolicy.defaults().withGrowthFactor(3D).grownCapacity(16));
+        assertEquals(32, ResizePolicy.defaults().withGrowthFactor(4D).withMaxCapacity(32).grownCapacity(16));
+        assertThrows(IllegalStateException.class, () -> ResizePolicy.defaults().withMaxCapacity(16).grownCapacity(16));
+    }
+
+    @Test
+    void shrinkShouldLeaveLoadBelowGrownLoad() {
+
+        final ResizePolicy subjectUnderTest = ResizePolicy.defaults();
+
+        assertFalse(subjectUnderTest.shouldShrink(48, 256));
+        assertTrue(subjectUnderTest.shouldShrink(47, 256));
+        // shrinks to a load of at least 3/16 but below the 3/8 load of a freshly grown table
+        assertEquals(128, subjectUnderTest.shrunkCapacity(47, 256, 4));
+        assertEquals(16, subjectUnderTest.shrunkCapacity(3, 256, 4));
+        assertEquals(64, subjectUnderTest.shrunkCapacity(3, 256, 64));
+    }
+}
@@ -0,0 +1,154 @@
+package ca.mpringle.assortments;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SortedArraySetTest {
+
+    @Test
+    void lookupsShouldMatchTreeSetInEveryLayout() {
+
+        final Random random = new Random(42);
+        for (final SortedArraySet.Layout layout : SortedArraySet.Layout.values()) {
+            for (final int size : new int[]{0, 1, 2, 3, 7, 8, 100, 1_023, 1_024, 1_025}) {
+                final TreeSet<Integer> expected = new TreeSet<>();
+                final Value[] values = new Value[size];
+                for (int i = 0; i < size; i++) {
+                    final int value = random.nextInt(4 * size);
+                    values[i] = new Value(value);
+                    expected.add(value);
+                }
+
+                final SortedArraySet<Value> subjectUnderTest = SortedArraySet.of(layout, values);
+
+                assertEquals(layout, subjectUnderTest.getLayout());
+                assertEquals(expected.size(), subjectUnderTest.size());
+                assertEquals(List.copyOf(expected), subjectUnderTest.stream().map(v -> v.value).collect(Collectors.toList()));
+                for (int value = -1; value <= 4 * size; value++) {
+                    assertEquals(expected.contains(value), subjectUnderTest.contains(new Value(value)));
+                    assertEquals(valueOf(expected.floor(value)), subjectUnderTest.floor(new Value(value)));
+                    assertEquals(valueOf(expected.ceiling(value)), subjectUnderTest.ceiling(new Value(value)));
+                }
+                if (size > 0) {
+                    assertEquals(new Value(expected.first()), subjectUnderTest.first());
+                    assertEquals(new Value(expected.last()), subjectUnderTest.last());
+                }
+            }
+        }
+    }
+
+    @Test
+    void subSetShouldIterateTheHalfOpenRange() {
+
+        for (final SortedArraySet.Layout layout : SortedArraySet.Layout.values()) {
+            final Value[] values = new Value[50];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new Value(2 * i);
+            }
+            final SortedArraySet<Value> subjectUnderTest = SortedArraySet.of(layout, values);
+
+            final AbstractAssortment<Value> range = subjectUnderTest.subSet(new Value(11), new Value(20));
+            assertEquals("{12, 14, 16, 18}", range.toString());
+            assertEquals(4, range.size());
+            assertTrue(range.contains(new Value(12)));
+            assertFalse(range.contains(new Value(20)));
+            assertTrue(subjectUnderTest.subSet(new Value(200), new Value(300)).isEmpty());
+            assertEquals(50, subjectUnderTest.subSet(new Value(-1), new Value(99)).size());
+            assertThrows(IllegalArgumentException.class, () -> subjectUnderTest.subSet(new Value(2), new Value(1)));
+        }
+    }
+
+    @Test
+    void ofShouldDropDuplicatesAndRejectNulls() {
+
+        final SortedArraySet<Value> subjectUnderTest = SortedArraySet.of(new Value(3), new Value(1), new Value(3), new Value(2));
+
+        assertEquals(SortedArraySet.Layout.EYTZINGER, subjectUnderTest.getLayout());
+        assertEquals("{1, 2, 3}", subjectUnderTest.toString());
+        assertFalse(subjectUnderTest.contains(null));
+        assertThrows(NullPointerException.class, () -> SortedArraySet.of(new Value(1), null));
+    }
+
+    @Test
+    void spliteratorShouldBeSizedAndImmutable() {
+
+        final SortedArraySet<Value> sorted = SortedArraySet.of(SortedArraySet.Layout.SORTED, new Value(2), new Value(1), new Value(3));
+        final Spliterator<Value> spliterator = sorted.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE | Spliterator.ORDERED));
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+
+        final SortedArraySet<Value> eytzinger = SortedArraySet.of(new Value(2), new Value(1), new Value(3));
+        assertTrue(eytzinger.spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.IMMUTABLE | Spliterator.ORDERED));
+        assertEquals(6, eytzinger.parallelStream().mapToInt(v -> v.value).sum());
+    }
+
+    @Test
+    void emptySetShouldHaveNoElements() {
+
+        final SortedArraySet<Value> subjectUnderTest = SortedArraySet.of();
+
+        assertTrue(subjectUnderTest.isEmpty());
+        assertEquals("{}", subjectUnderTest.toString());
+        assertNull(subjectUnderTest.floor(new Value(1)));
+        assertThrows(NoSuchElementException.class, subjectUnderTest::first);
+        assertThrows(NoSuchElementException.class, subjectUnderTest::last);
+
+        final Iterator<Value> iterator = subjectUnderTest.iterator();
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Nullable
+    private static Value valueOf(@Nullable final Integer value) {
+
+        return value == null ? null : new Value(value);
+    }
+
+    private static final class Value extends AbstractEquals<Value> implements Compares<Value> {
+
+        private final int value;
+
+        private Value(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(@NotNull final Value instance) {
+
+            return Integer.compare(value, instance.value);
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final Value instance) {
+
+            return instance != null && compareTo(instance) == 0;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return value;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SwissHashSetTest {
+
+    @Test
+    void addShouldRejectDuplicates() {
+
+        final SwissHashSet<Equals<String>> subjectUnderTest = new SwissHashSet<>();
+
+        for (int i = 1, c = 'a'; c <= 'z'; c++, i++) {
+
+            // add twice, duplicates should be rejected
+            final Equals<String> e = typeAsEquals("" + (char) c);
+            subjectUnderTest.add(e);
+            subjectUnderTest.add(e);
+
+            assertEquals(i, subjectUnderTest.size());
+            assertTrue(subjectUnderTest.contains(e));
+        }
+        assertFalse(subjectUnderTest.contains(typeAsEquals("A")));
+        assertFalse(subjectUnderTest.contains(null));
+    }
+
+    @Test
+    void addShouldHandlePoorHashCode() {
+
+        final SwissHashSet<SameHash> subjectUnderTest = new SwissHashSet<>();
+
+        final int numberOfElements = 2_000;
+        for (int i = 0; i < numberOfElements; i++) {
+            subjectUnderTest.add(new SameHash(i));
+        }
+
+        assertEquals(numberOfElements, subjectUnderTest.size());
+        for (int i = 0; i < numberOfElements; i++) {
+            assertTrue(subjectUnderTest.contains(new SameHash(i)));
+        }
+    }
+
+    @Test
+    void constructorShouldRejectInvalidLoadFactor() {
+
+        assertThrows(IllegalArgumentException.class, () -> new SwissHashSet<Equals<String>>(8, 0.95D));
+        assertThrows(IllegalArgumentException.class, () -> new SwissHashSet<Equals<String>>(8, 0D));
+        assertThrows(IllegalArgumentException.class, () -> new SwissHashSet<Equals<String>>(0, 0.5D));
+    }
+
+    @Test
+    void randomOperationsShouldMatchJavaHashSet() {
+
+        final Random random = new Random(7);
+        for (final double loadFactor : new double[]{0.5D, 0.75D, 0.875D}) {
+            final SwissHashSet<Pair<Integer, Integer>> subjectUnderTest = new SwissHashSet<>(8, loadFactor);
+            final java.util.HashSet<Pair<Integer, Integer>> expected = new java.util.HashSet<>();
+
+            for (int i = 0; i < 50_000; i++) {
+                final Pair<Integer, Integer> pair = new Pair<>(random.nextInt(2_000), 0);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(pair), subjectUnderTest.remove(pair));
+                } else {
+                    expected.add(pair);
+                    subjectUnderTest.add(pair);
+                }
+                assertEquals(expected.size(), subjectUnderTest.size());
+                assertEquals(expected.contains(pair), subjectUnderTest.contains(pair));
+            }
+
+            final List<Pair<Integer, Integer>> actual = subjectUnderTest.toCollectionType(ArrayList::new);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(expected.containsAll(actual));
+        }
+    }
+
+    @Test
+    void iteratorShouldWork() {
+
+        final SwissHashSet<Equals<String>> subjectUnderTest = new SwissHashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+
+        final List<Equals<String>> list = new ArrayList<>(List.of(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c")));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        while (iterator.hasNext()) {
+            assertTrue(list.remove(iterator.next()));
+        }
+
+        assertTrue(list.isEmpty());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void iteratorShouldFailFastOnModification() {
+
+        final SwissHashSet<Equals<String>> subjectUnderTest = new SwissHashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        iterator.next();
+        subjectUnderTest.remove(typeAsEquals("a"));
+
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    @Test
+    void equalsShouldMatchOtherAssortments() {
+
+        final SwissHashSet<Equals<String>> subjectUnderTest = new SwissHashSet<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"));
+
+        final HashSet<Equals<String>> other = new HashSet<>();
+        other.addAll(typeAsEquals("b"), typeAsEquals("a"));
+
+        assertTrue(subjectUnderTest.isEqual(other));
+        assertNotEquals(subjectUnderTest, null);
+    }
+
+    @Test
+    void toStringShouldHaveCustomImplementation() {
+
+        final SwissHashSet<Equals<String>> subjectUnderTest = new SwissHashSet<>();
+        subjectUnderTest.add(typeAsEquals("a"));
+
+        assertEquals("{a}", subjectUnderTest.toString());
+        assertEquals("{}", new SwissHashSet<Equals<String>>().toString());
+    }
+
+    private static final class SameHash extends AbstractEquals<SameHash> {
+
+        private final int value;
+
+        private SameHash(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean isEqual(@Nullable final SameHash instance) {
+
+            return instance != null && value == instance.value;
+        }
+
+        @Override
+        public int computeHash() {
+
+            return 1;
+        }
+    }
+}
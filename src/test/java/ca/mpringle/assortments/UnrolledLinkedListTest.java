@@ -0,0 +1,169 @@
+package ca.mpringle.assortments;
+
+import ca.mpringle.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static ca.mpringle.assortments.EqualsAdapter.typeAsEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class UnrolledLinkedListTest {
+
+    @Test
+    void addAndRemoveShouldWorkAcrossChunks() {
+
+        final UnrolledLinkedList<Pair<Integer, Integer>> subjectUnderTest = new UnrolledLinkedList<>(16);
+
+        assertNull(subjectUnderTest.get());
+        for (int i = 0; i < 100; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+            assertEquals(new Pair<>(i, i), subjectUnderTest.get());
+        }
+        assertEquals(100, subjectUnderTest.size());
+
+        for (int i = 99; i >= 0; i--) {
+            assertEquals(new Pair<>(i, i), subjectUnderTest.get());
+            subjectUnderTest.remove();
+        }
+        assertNull(subjectUnderTest.get());
+        assertTrue(subjectUnderTest.isEmpty());
+        subjectUnderTest.remove();
+        assertEquals(0, subjectUnderTest.size());
+
+        subjectUnderTest.add(null);
+        assertNull(subjectUnderTest.get());
+        assertEquals(1, subjectUnderTest.size());
+    }
+
+    @Test
+    void chunkSizeShouldBeBetween16And64() {
+
+        assertEquals(UnrolledLinkedList.DEFAULT_CHUNK_SIZE, new UnrolledLinkedList<>().chunkSize());
+        assertEquals(64, new UnrolledLinkedList<>(64).chunkSize());
+        assertThrows(IllegalArgumentException.class, () -> new UnrolledLinkedList<>(15));
+        assertThrows(IllegalArgumentException.class, () -> new UnrolledLinkedList<>(65));
+    }
+
+    @Test
+    void addAllShouldMoveTheNodesOfTheOtherList() {
+
+        final UnrolledLinkedList<Pair<Integer, Integer>> subjectUnderTest = new UnrolledLinkedList<>(16);
+        final UnrolledLinkedList<Pair<Integer, Integer>> toAppend = new UnrolledLinkedList<>(16);
+        for (int i = 0; i < 20; i++) {
+            subjectUnderTest.add(new Pair<>(i, i));
+            toAppend.add(new Pair<>(i + 20, i + 20));
+        }
+
+        subjectUnderTest.addAll(toAppend);
+
+        assertEquals(40, subjectUnderTest.size());
+        assertTrue(toAppend.isEmpty());
+        assertEquals("[]", toAppend.toString());
+
+        // neither list sees later changes to the other
+        toAppend.add(new Pair<>(-1, -1));
+        subjectUnderTest.add(new Pair<>(40, 40));
+        assertEquals(1, toAppend.size());
+        assertEquals(41, subjectUnderTest.size());
+
+        int expected = 0;
+        for (final Pair<Integer, Integer> element : subjectUnderTest) {
+            assertEquals(new Pair<>(expected, expected), element);
+            expected++;
+        }
+        assertEquals(41, expected);
+
+        // popping back through the partly full spliced node
+        for (int i = 40; i >= 0; i--) {
+            assertEquals(new Pair<>(i, i), subjectUnderTest.get());
+            subjectUnderTest.remove();
+        }
+        assertTrue(subjectUnderTest.isEmpty());
+
+        final UnrolledLinkedList<Pair<Integer, Integer>> empty = new UnrolledLinkedList<>();
+        empty.addAll(toAppend);
+        assertEquals(new Pair<>(-1, -1), empty.get());
+        assertThrows(IllegalArgumentException.class, () -> empty.addAll(empty));
+    }
+
+    @Test
+    void splicingShortListsShouldKeepNodesAtLeastHalfFull() {
+
+        final UnrolledLinkedList<Pair<Integer, Integer>> subjectUnderTest = new UnrolledLinkedList<>(16);
+        int next = 0;
+        for (int i = 0; i < 200; i++) {
+            // lists of 1 to 3 elements, now and then of a different chunk size
+            final UnrolledLinkedList<Pair<Integer, Integer>> tiny = new UnrolledLinkedList<>(i % 7 == 0 ? 64 : 16);
+            for (int j = 0; j <= i % 3; j++) {
+                tiny.add(new Pair<>(next, next));
+                next++;
+            }
+            subjectUnderTest.addAll(tiny);
+        }
+
+        assertEquals(next, subjectUnderTest.size());
+        // every node but the last holds at least 8 of the 16 or more elements it has room for
+        assertTrue(subjectUnderTest.nodeCount() <= next / 8 + 1);
+        assertEquals(
+                IntStream.range(0, next).boxed().collect(Collectors.toList()),
+                subjectUnderTest.stream().map(Pair::getFirst).collect(Collectors.toList())
+        );
+
+        // a long list spliced after a short one tops the short node up to half full, 8, 9, 16, 8
+        final UnrolledLinkedList<Pair<Integer, Integer>> shortList = new UnrolledLinkedList<>(16);
+        shortList.add(new Pair<>(0, 0));
+        final UnrolledLinkedList<Pair<Integer, Integer>> longList = new UnrolledLinkedList<>(16);
+        for (int i = 1; i <= 40; i++) {
+            longList.add(new Pair<>(i, i));
+        }
+        shortList.addAll(longList);
+        assertEquals(4, shortList.nodeCount());
+        for (int i = 40; i >= 0; i--) {
+            assertEquals(new Pair<>(i, i), shortList.get());
+            shortList.remove();
+        }
+        assertEquals(0, shortList.nodeCount());
+    }
+
+    @Test
+    void iteratorShouldFailFast() {
+
+        final UnrolledLinkedList<Equals<String>> subjectUnderTest = new UnrolledLinkedList<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+
+        final Iterator<Equals<String>> iterator = subjectUnderTest.iterator();
+        assertEquals(typeAsEquals("a"), iterator.next());
+        subjectUnderTest.remove();
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        final Iterator<Equals<String>> exhausted = subjectUnderTest.iterator();
+        exhausted.next();
+        exhausted.next();
+        assertFalse(exhausted.hasNext());
+        assertThrows(NoSuchElementException.class, exhausted::next);
+
+        assertThrows(ConcurrentModificationException.class, () -> subjectUnderTest.forEach(element -> subjectUnderTest.add(element)));
+    }
+
+    @Test
+    void streamsAndToStringShouldKeepInsertionOrder() {
+
+        final UnrolledLinkedList<Equals<String>> subjectUnderTest = new UnrolledLinkedList<>();
+        subjectUnderTest.addAll(typeAsEquals("a"), typeAsEquals("b"), typeAsEquals("c"));
+
+        assertEquals(List.of("a", "b", "c"), subjectUnderTest.stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals("[a->b->c]", subjectUnderTest.toString());
+        assertTrue(subjectUnderTest.contains(typeAsEquals("b")));
+        assertFalse(subjectUnderTest.contains(typeAsEquals("d")));
+    }
+}
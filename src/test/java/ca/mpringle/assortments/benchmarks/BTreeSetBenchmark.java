@@ -0,0 +1,116 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.BTreeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Floor lookups and range scans of a {@link BTreeSet} against the red-black tree of
+ * {@link TreeSet}. The keys are every other integer, so half of the lookups miss and
+ * fall back to the next smaller key, as a lookup by timestamp usually does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BTreeSetBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    private static final int RANGE = 1_000;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"16", "64"})
+    private int fanout;
+
+    private BTreeSet<Key> bTreeSet;
+    private TreeSet<Key> treeSet;
+    private Key[] lookups;
+
+    @Setup
+    public void setUp() {
+
+        final Key[] keys = new Key[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new Key(2 * i);
+        }
+        bTreeSet = BTreeSet.fromSorted(fanout, Arrays.asList(keys));
+        treeSet = new TreeSet<>(Arrays.asList(keys));
+
+        final Random random = new Random(42);
+        lookups = new Key[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = new Key(random.nextInt(2 * (size - RANGE)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int bTreeSetFloor() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += bTreeSet.floor(key) != null ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int treeSetFloor() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += treeSet.floor(key) != null ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long bTreeSetRangeScan() {
+
+        long count = 0;
+        for (final Key key : lookups) {
+            for (final Key ignored : bTreeSet.subSet(key, new Key(key.computeHash() + RANGE))) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long treeSetRangeScan() {
+
+        long count = 0;
+        for (final Key key : lookups) {
+            for (final Key ignored : treeSet.subSet(key, new Key(key.computeHash() + RANGE))) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
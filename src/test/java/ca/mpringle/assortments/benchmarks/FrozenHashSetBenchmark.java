@@ -0,0 +1,101 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.FrozenHashSet;
+import ca.mpringle.assortments.HashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in a {@link FrozenHashSet} against the {@link HashSet} it was frozen from, half
+ * of them hits and half misses in random order, and the time to build each from the same
+ * keys. Building is reported in microseconds per set, lookups in nanoseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenHashSetBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Key[] keys;
+    private HashSet<Key> hashSet;
+    private FrozenHashSet<Key> frozenHashSet;
+    private Key[] lookups;
+
+    @Setup
+    public void setUp() {
+
+        keys = Key.range(size);
+        hashSet = HashSet.withExpectedSize(size);
+        hashSet.addAll(keys);
+        frozenHashSet = hashSet.freeze();
+
+        // keys from 0 to 2 * size, so about half miss
+        final Random random = new Random(42);
+        lookups = new Key[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = new Key(random.nextInt(2 * size));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashSetContains() {
+
+        int found = 0;
+        for (final Key lookup : lookups) {
+            if (hashSet.contains(lookup)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int frozenHashSetContains() {
+
+        int found = 0;
+        for (final Key lookup : lookups) {
+            if (frozenHashSet.contains(lookup)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public HashSet<Key> hashSetBuild() {
+
+        final HashSet<Key> built = HashSet.withExpectedSize(size);
+        built.addAll(keys);
+        return built;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FrozenHashSet<Key> frozenHashSetBuild() {
+
+        return hashSet.freeze();
+    }
+}
@@ -0,0 +1,144 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.HashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups, inserts and traversals of a {@link HashMap} against {@link java.util.HashMap}.
+ * Half of the lookups hit, inserts build a map of the given size from empty.
+ * <p>
+ * Sequential keys are the best case for {@link java.util.HashMap}, which uses small hash
+ * codes as they are and so fills and walks its table in allocation order, whereas the
+ * spread hashes of {@link HashMap} scatter them. Random keys scatter both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashMapBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"sequential", "random"})
+    private String keyOrder;
+
+    private Key[] keys;
+    private HashMap<Key, Integer> hashMap;
+    private java.util.HashMap<Key, Integer> javaHashMap;
+    private Key[] lookups;
+
+    @Setup
+    public void setUp() {
+
+        keys = Key.range(size);
+        if ("random".equals(keyOrder)) {
+            final Random random = new Random(42);
+            for (int i = 0; i < size; i++) {
+                keys[i] = new Key(random.nextInt());
+            }
+        }
+        hashMap = new HashMap<>();
+        javaHashMap = new java.util.HashMap<>();
+        for (int i = 0; i < size; i++) {
+            hashMap.put(keys[i], i);
+            javaHashMap.put(keys[i], i);
+        }
+
+        // spread lookups over the whole table, every other one a miss
+        lookups = new Key[LOOKUPS];
+        final int stride = size / LOOKUPS + 1;
+        for (int i = 0; i < LOOKUPS; i++) {
+            final Key hit = keys[(i * stride) % size];
+            lookups[i] = i % 2 == 0 ? hit : new Key(hit.computeHash() ^ 0x5bd1e995);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashMapGet() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += hashMap.get(key) != null ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int javaHashMapGet() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += javaHashMap.get(key) != null ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    public HashMap<Key, Integer> hashMapPut() {
+
+        final HashMap<Key, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+
+        return map;
+    }
+
+    @Benchmark
+    public java.util.HashMap<Key, Integer> javaHashMapPut() {
+
+        final java.util.HashMap<Key, Integer> map = new java.util.HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+
+        return map;
+    }
+
+    @Benchmark
+    public long hashMapCursor() {
+
+        long sum = 0;
+        final HashMap<Key, Integer>.Cursor cursor = hashMap.cursor();
+        while (cursor.advance()) {
+            sum += cursor.value();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long javaHashMapEntrySet() {
+
+        long sum = 0;
+        for (final Map.Entry<Key, Integer> entry : javaHashMap.entrySet()) {
+            sum += entry.getValue();
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,81 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.HashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full traversals of a {@link HashSet}, with {@link java.util.HashSet} as a baseline.
+ * Each traversal should scale linearly with the number of elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashSetIterationBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private HashSet<Key> hashSet;
+    private java.util.HashSet<Key> javaHashSet;
+
+    @Setup
+    public void setUp() {
+
+        hashSet = new HashSet<>();
+        javaHashSet = new java.util.HashSet<>();
+        for (final Key key : Key.range(size)) {
+            hashSet.add(key);
+            javaHashSet.add(key);
+        }
+    }
+
+    @Benchmark
+    public void iterator(final Blackhole blackhole) {
+
+        for (final Key key : hashSet) {
+            blackhole.consume(key);
+        }
+    }
+
+    @Benchmark
+    public int stream() {
+
+        return hashSet.stream().mapToInt(Key::computeHash).sum();
+    }
+
+    @Benchmark
+    public Key[] toArray() {
+
+        return hashSet.toArray(Key[]::new);
+    }
+
+    @Benchmark
+    public int computeHash() {
+
+        return hashSet.computeHash();
+    }
+
+    @Benchmark
+    public void javaIterator(final Blackhole blackhole) {
+
+        for (final Key key : javaHashSet) {
+            blackhole.consume(key);
+        }
+    }
+}
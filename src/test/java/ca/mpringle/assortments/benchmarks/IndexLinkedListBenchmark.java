@@ -0,0 +1,107 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.IndexLinkedList;
+import ca.mpringle.assortments.LinkedList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state churn, one add and one remove per operation, through an
+ * {@link IndexLinkedList} and a {@link LinkedList} that each hold a standing number of
+ * elements, and as a queue against {@link java.util.LinkedList}, since {@link LinkedList}
+ * only removes from the end. The keys are made once in set up, so any allocation is the
+ * list's own. Run with {@code -prof gc} to see the allocation per operation,
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexLinkedListBenchmark {
+
+    private static final int OPERATIONS = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private IndexLinkedList<Key> indexLinkedList;
+    private LinkedList<Key> linkedList;
+    private java.util.LinkedList<Key> jdkLinkedList;
+    private Key[] keys;
+
+    @Setup
+    public void setUp() {
+
+        keys = new Key[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            keys[i] = new Key(i);
+        }
+
+        indexLinkedList = new IndexLinkedList<>();
+        linkedList = new LinkedList<>();
+        jdkLinkedList = new java.util.LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            indexLinkedList.add(keys[i % OPERATIONS]);
+            linkedList.add(keys[i % OPERATIONS]);
+            jdkLinkedList.add(keys[i % OPERATIONS]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int indexLinkedListStack() {
+
+        for (final Key key : keys) {
+            indexLinkedList.add(key);
+            indexLinkedList.remove();
+        }
+        return indexLinkedList.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int indexLinkedListQueue() {
+
+        for (final Key key : keys) {
+            indexLinkedList.add(key);
+            indexLinkedList.poll();
+        }
+        return indexLinkedList.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int linkedListStack() {
+
+        for (final Key key : keys) {
+            linkedList.add(key);
+            linkedList.remove();
+        }
+        return linkedList.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int jdkLinkedListQueue() {
+
+        for (final Key key : keys) {
+            jdkLinkedList.add(key);
+            jdkLinkedList.poll();
+        }
+        return jdkLinkedList.size();
+    }
+}
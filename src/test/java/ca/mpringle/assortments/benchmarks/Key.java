@@ -0,0 +1,56 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.AbstractEquals;
+import ca.mpringle.assortments.Compares;
+import jakarta.annotation.Nullable;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A small Compares key for benchmarks, cheap to hash and compare so the measurements
+ * reflect the assortment rather than the element.
+ */
+final class Key extends AbstractEquals<Key> implements Compares<Key>, Comparable<Key> {
+
+    private final int value;
+
+    Key(final int value) {
+        this.value = value;
+    }
+
+    @NotNull
+    static Key[] range(final int size) {
+
+        final Key[] keys = new Key[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new Key(i);
+        }
+
+        return keys;
+    }
+
+    @Override
+    public int compareTo(@NotNull final Key instance) {
+
+        return Integer.compare(value, instance.value);
+    }
+
+    @Override
+    public boolean isEqual(@Nullable final Key instance) {
+
+        return instance != null && value == instance.value;
+    }
+
+    @Override
+    public int computeHash() {
+
+        return value;
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,97 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.HashSet;
+import ca.mpringle.assortments.SortedArraySet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in a {@link SortedArraySet} in either layout against {@link HashSet#contains}.
+ * The keys are every other integer and half of the lookups miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedArraySetBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"64", "1000", "1000000"})
+    private int size;
+
+    private SortedArraySet<Key> eytzinger;
+    private SortedArraySet<Key> sorted;
+    private HashSet<Key> hashSet;
+    private Key[] lookups;
+
+    @Setup
+    public void setUp() {
+
+        final Key[] keys = new Key[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = new Key(2 * i);
+        }
+        eytzinger = SortedArraySet.of(SortedArraySet.Layout.EYTZINGER, keys);
+        sorted = SortedArraySet.of(SortedArraySet.Layout.SORTED, keys);
+        hashSet = new HashSet<>();
+        hashSet.addAll(keys);
+
+        final Random random = new Random(42);
+        lookups = new Key[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = new Key(random.nextInt(2 * size));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int eytzingerContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += eytzinger.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int sortedContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += sorted.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashSetContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += hashSet.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,101 @@
+package ca.mpringle.assortments.benchmarks;
+
+import ca.mpringle.assortments.HashSet;
+import ca.mpringle.assortments.ResizePolicy;
+import ca.mpringle.assortments.SwissHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Membership tests against a {@link SwissHashSet}, the linear probing {@link HashSet} and
+ * {@link java.util.HashSet}, each grown at the same load factor. Half of the lookups hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwissHashSetBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"0.5", "0.75", "0.875"})
+    private double loadFactor;
+
+    private SwissHashSet<Key> swissHashSet;
+    private HashSet<Key> hashSet;
+    private java.util.HashSet<Key> javaHashSet;
+    private Key[] lookups;
+
+    @Setup
+    public void setUp() {
+
+        swissHashSet = new SwissHashSet<>(8, loadFactor);
+        hashSet = new HashSet<>(ResizePolicy.defaults().withLoadFactor(loadFactor));
+        javaHashSet = new java.util.HashSet<>(16, (float) loadFactor);
+        for (final Key key : Key.range(size)) {
+            swissHashSet.add(key);
+            hashSet.add(key);
+            javaHashSet.add(key);
+        }
+
+        // spread lookups over the whole table, every other one a miss
+        lookups = new Key[LOOKUPS];
+        final long stride = 2L * size / LOOKUPS + 1;
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = new Key((int) ((i * stride) % (2L * size)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int swissHashSetContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += swissHashSet.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int hashSetContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += hashSet.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int javaHashSetContains() {
+
+        int found = 0;
+        for (final Key key : lookups) {
+            found += javaHashSet.contains(key) ? 1 : 0;
+        }
+
+        return found;
+    }
+}